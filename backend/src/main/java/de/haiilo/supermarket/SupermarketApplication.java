@@ -2,8 +2,12 @@ package de.haiilo.supermarket;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {"de.haiilo.supermarket"})
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class SupermarketApplication {
 
     public static void main(String[] args) {
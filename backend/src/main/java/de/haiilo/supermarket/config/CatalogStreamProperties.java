@@ -0,0 +1,20 @@
+package de.haiilo.supermarket.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "supermarket.catalog.stream")
+@Getter
+@Setter
+public class CatalogStreamProperties {
+    // Catalog versions kept for clients resuming the stream, older clients have to reload the catalog
+    private int bufferSize = 1024;
+    // Events waiting for one slow client, when it falls further behind it gets a reset event instead
+    private int subscriberQueueSize = 256;
+    // Threads writing to subscribers, a client stuck in a write holds one of them until the write fails
+    private int senderThreads = 4;
+    // Connections are closed after this time, EventSource reconnects and resumes with Last-Event-ID
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+}
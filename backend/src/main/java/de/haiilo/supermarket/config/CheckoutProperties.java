@@ -0,0 +1,45 @@
+package de.haiilo.supermarket.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "supermarket.checkout")
+@Getter
+@Setter
+public class CheckoutProperties {
+    private WriteBehind writeBehind = new WriteBehind();
+    private Streaming streaming = new Streaming();
+    private Batch batch = new Batch();
+
+    @Getter
+    @Setter
+    public static class WriteBehind {
+        // Journal validated checkouts locally and write them to the database in the background
+        private boolean enabled = false;
+        private String journalDir = "data/order-journal";
+        private long drainIntervalMs = 200;
+        // Max orders inserted in one database transaction
+        private int drainBatchSize = 500;
+        // Fully drained journals bigger than this are truncated
+        private long compactThresholdBytes = 64L * 1024 * 1024;
+        // Max wait of a checkout for its journal fsync, answered with 503 when it's exceeded
+        private long appendTimeoutMs = 5_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Streaming {
+        // Limits of /api/orders/checkout/stream, checked while the cart is parsed
+        private int maxCartLines = 10_000;
+        // Max summed quantity per item
+        private int maxItemQuantity = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        // Max carts per /api/orders/checkout/batch request, all of them are persisted in one transaction
+        private int maxCarts = 1_000;
+    }
+}
@@ -0,0 +1,55 @@
+package de.haiilo.supermarket.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.domain.Offer;
+import de.haiilo.supermarket.domain.Price;
+import java.util.List;
+import java.util.OptionalLong;
+import javax.cache.CacheManager;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Caffeine behind Hibernate's second-level cache, so loading an item with its current price and offer by id
+// - as price writes and offer changes do - is served from memory.
+// Each application context gets its own cache manager, contexts on different databases must not share entries.
+// Hit, miss and put counts per region are exposed as hibernate.second.level.cache.* meters.
+@Configuration
+public class EntityCacheConfig {
+    public static final List<String> REGIONS = List.of(Item.CACHE_REGION, Price.CACHE_REGION, Offer.CACHE_REGION);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(EntityCacheProperties properties) {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        for (String region : REGIONS) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(properties.getMaximumSize()));
+            configuration.setExpireAfterWrite(OptionalLong.of(properties.getExpireAfterWrite().toNanos()));
+            cacheManager.createCache(region, configuration);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(
+        EntityCacheProperties properties,
+        CacheManager entityCacheManager
+    ) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, properties.isEnabled());
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, properties.isEnabled());
+            if (properties.isEnabled()) {
+                hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+                hibernateProperties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+                // All regions are created above, a missing one is a mapping mistake
+                hibernateProperties.put(
+                    ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+            }
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package de.haiilo.supermarket.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "supermarket.entity-cache")
+@Getter
+@Setter
+public class EntityCacheProperties {
+    // Hibernate second-level cache for items, prices and offers
+    private boolean enabled = true;
+    // Per region. Every price change adds a price, so the price region mostly holds the current ones.
+    private long maximumSize = 10_000;
+    // Bounds how long a write that bypasses Hibernate stays unnoticed, writes through it update the cache on commit
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
@@ -0,0 +1,47 @@
+package de.haiilo.supermarket.config;
+
+import de.haiilo.supermarket.domain.Offer;
+import de.haiilo.supermarket.domain.Order;
+import de.haiilo.supermarket.domain.OrderItem;
+import de.haiilo.supermarket.domain.Price;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Migration path from IDENTITY ids: tables filled before the switch to sequences already contain ids
+// the new sequences would hand out again. Runs once the schema exists and before anything is inserted,
+// and restarts every sequence that is behind its table above the highest existing id.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdSequenceAligner {
+    private static final Map<String, String> SEQUENCES_BY_TABLE = Map.of(
+        "kata_order", Order.ID_SEQUENCE,
+        "order_item", OrderItem.ID_SEQUENCE,
+        "price", Price.ID_SEQUENCE,
+        "offer", Offer.ID_SEQUENCE
+    );
+
+    // Ensures the schema has been created or updated by Hibernate first
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequences() {
+        SEQUENCES_BY_TABLE.forEach(this::align);
+    }
+
+    private void align(String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        Long nextId = jdbcTemplate.queryForObject("select next value for " + sequence, Long.class);
+        if (maxId == null || nextId == null || nextId > maxId) {
+            return;
+        }
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + 1));
+        log.info("Restarted sequence {} at {} above the existing ids of {}", sequence, maxId + 1, table);
+    }
+}
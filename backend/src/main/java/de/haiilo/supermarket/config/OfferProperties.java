@@ -0,0 +1,15 @@
+package de.haiilo.supermarket.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "supermarket.offers")
+@Getter
+@Setter
+public class OfferProperties {
+    // Resolution of offer starts and ends, an offer takes effect at most one tick late and never early
+    private long tickMs = 100;
+    // Buckets of the timer wheel, one revolution should cover the typical time until an offer starts or ends
+    private int wheelSize = 4096;
+}
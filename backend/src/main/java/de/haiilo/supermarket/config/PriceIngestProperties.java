@@ -0,0 +1,31 @@
+package de.haiilo.supermarket.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "supermarket.price-ingest")
+@Getter
+@Setter
+public class PriceIngestProperties {
+    // Consume price.queue in batches instead of one message per transaction
+    private boolean batchEnabled = false;
+    // Max messages applied in one transaction
+    private int batchSize = 100;
+    // Max time to wait for a batch to fill up before applying what was received
+    private Duration batchTimeout = Duration.ofMillis(100);
+    // Keep at 1 when items must be updated in order, parallelism comes from lanes instead
+    private int concurrency = 1;
+    private int prefetch = 250;
+    // Drop prices superseded by a later price for the same item within a batch.
+    // Only applies when history isn't retained, otherwise every price is still written to the price table.
+    private boolean coalescingEnabled = false;
+    private boolean retainHistory = true;
+    // Splits each batch by item onto this many parallel lanes, batch mode only. 0 or 1 applies it on the consumer thread.
+    private int lanes = 0;
+
+    public boolean shouldCoalesce() {
+        return batchEnabled && coalescingEnabled && !retainHistory;
+    }
+}
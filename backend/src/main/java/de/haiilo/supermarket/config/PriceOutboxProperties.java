@@ -0,0 +1,19 @@
+package de.haiilo.supermarket.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "supermarket.price-outbox")
+@Getter
+@Setter
+public class PriceOutboxProperties {
+    // Off by default, enabled explicitly on the node(s) meant to publish. Several enabled nodes take turns.
+    private boolean relayEnabled = false;
+    private long relayIntervalMs = 200;
+    // Max changes published and confirmed together
+    private int batchSize = 500;
+    // Unconfirmed changes stay in the outbox and are published again with the next run
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+}
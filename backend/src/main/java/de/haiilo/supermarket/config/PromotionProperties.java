@@ -0,0 +1,49 @@
+package de.haiilo.supermarket.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Promotions on top of the items' current offers, priced at checkout and in quotes.
+// Clients calculating totals themselves only know the current offers and should quote carts when these are set.
+@ConfigurationProperties(prefix = "supermarket.promotions")
+@Getter
+@Setter
+public class PromotionProperties {
+    // Further tiers by item id next to the item's current offer, e.g. 5 for 30% off besides 2 for 25% off
+    private Map<Long, List<Tier>> tiers = new HashMap<>();
+    // Any quantity units of the listed items for a discount, on units not already in an offer bundle
+    private List<MixAndMatch> mixAndMatch = new ArrayList<>();
+    // Discount on the whole cart from a minimum total, the highest reached threshold applies
+    private List<BasketThreshold> basketThresholds = new ArrayList<>();
+    // Quantities tiered items are precomputed for, larger ones cost a few more operations
+    private int planMaxQuantity = 100;
+
+    @Getter
+    @Setter
+    public static class Tier {
+        private int quantity;
+        private int discountPercentage;
+    }
+
+    @Getter
+    @Setter
+    public static class MixAndMatch {
+        private Set<Long> itemIds = new HashSet<>();
+        private int quantity;
+        private int discountPercentage;
+    }
+
+    @Getter
+    @Setter
+    public static class BasketThreshold {
+        private int minTotal;
+        private int discountPercentage;
+    }
+}
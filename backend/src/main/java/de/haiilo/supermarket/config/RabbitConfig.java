@@ -1,15 +1,37 @@
 package de.haiilo.supermarket.config;
 
+import de.haiilo.supermarket.dto.ItemInvalidationDto;
+import de.haiilo.supermarket.dto.PriceChangedDto;
 import de.haiilo.supermarket.dto.PriceDto;
+import de.haiilo.supermarket.dto.ScheduledOfferDto;
+import de.haiilo.supermarket.exception.InvalidOfferException;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import de.haiilo.supermarket.service.ItemInvalidationBus;
+import de.haiilo.supermarket.service.ItemInvalidationHandler;
+import de.haiilo.supermarket.service.OfferService;
+import de.haiilo.supermarket.service.PriceChangePublisher;
+import de.haiilo.supermarket.service.PriceIngestLanes;
 import de.haiilo.supermarket.service.PriceService;
+import de.haiilo.supermarket.util.PriceCoalescer;
+import java.util.Date;
+import java.util.List;
+import javax.persistence.EntityNotFoundException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.AsyncConsumerRestartedEvent;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Header;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -18,8 +40,22 @@ import lombok.RequiredArgsConstructor;
 public class RabbitConfig {
     public static final String EXCHANGE_NAME = "amq.fanout";
     public static final String QUEUE_NAME = "price.queue";
+    // Offers get an exchange of their own, binding offer.queue to amq.fanout would deliver it every price too
+    public static final String OFFER_EXCHANGE_NAME = "supermarket.offers";
+    public static final String OFFER_QUEUE_NAME = "offer.queue";
+    // Unlike prices, every node needs every invalidation, so each binds a queue of its own
+    public static final String INVALIDATION_EXCHANGE_NAME = "supermarket.invalidations";
+    public static final String INVALIDATION_LISTENER_ID = "invalidationListener";
+    // Downstream systems bind queues of their own, relayed from the price outbox
+    public static final String PRICE_CHANGE_EXCHANGE_NAME = "supermarket.price-changes";
+    public static final String BATCH_ENABLED = "${supermarket.price-ingest.batch-enabled:false}";
     
     private final PriceService priceService;
+    private final PriceIngestLanes priceIngestLanes;
+    private final OfferService offerService;
+    private final ItemInvalidationHandler itemInvalidationHandler;
+    private final PriceIngestProperties priceIngestProperties;
+    private final SupermarketMetrics metrics;
 
     @Bean
     public Queue queue() {
@@ -37,19 +73,141 @@ public class RabbitConfig {
     }
 
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
+    public Queue offerQueue() {
+        return new Queue(OFFER_QUEUE_NAME, true);
+    }
+
+    @Bean
+    public FanoutExchange offerExchange() {
+        return new FanoutExchange(OFFER_EXCHANGE_NAME);
+    }
+
+    @Bean
+    public Binding offerBinding(Queue offerQueue, FanoutExchange offerExchange) {
+        return BindingBuilder.bind(offerQueue).to(offerExchange);
+    }
+
+    @Bean
+    public FanoutExchange invalidationExchange() {
+        return new FanoutExchange(INVALIDATION_EXCHANGE_NAME);
+    }
+
+    // Server-named, exclusive and auto-delete: it lives as long as this node's connection.
+    @Bean
+    public Queue invalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding invalidationBinding(Queue invalidationQueue, FanoutExchange invalidationExchange) {
+        return BindingBuilder.bind(invalidationQueue).to(invalidationExchange);
+    }
+
+    @Bean
+    public ItemInvalidationBus itemInvalidationBus(AmqpTemplate amqpTemplate) {
+        return invalidation -> amqpTemplate.convertAndSend(INVALIDATION_EXCHANGE_NAME, "", invalidation);
+    }
+
+    @Bean
+    public static Jackson2JsonMessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
     }
 
     @Bean
-    public AmqpTemplate amqpTemplate(ConnectionFactory connectionFactory) {
+    public FanoutExchange priceChangeExchange() {
+        return new FanoutExchange(PRICE_CHANGE_EXCHANGE_NAME);
+    }
+
+    // Publishes on one channel and waits for the broker to confirm all of it, which needs
+    // spring.rabbitmq.publisher-confirm-type=simple. The outbox id is the message id consumers deduplicate by.
+    @Bean
+    public PriceChangePublisher priceChangePublisher(RabbitTemplate amqpTemplate, PriceOutboxProperties properties) {
+        return changes -> amqpTemplate.invoke(operations -> {
+            for (PriceChangedDto change : changes) {
+                operations.convertAndSend(PRICE_CHANGE_EXCHANGE_NAME, "", change, message -> {
+                    message.getMessageProperties().setMessageId(change.id().toString());
+                    return message;
+                });
+            }
+            operations.waitForConfirmsOrDie(properties.getConfirmTimeout().toMillis());
+            return null;
+        });
+    }
+
+    @Bean
+    public RabbitTemplate amqpTemplate(ConnectionFactory connectionFactory, Jackson2JsonMessageConverter messageConverter) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(messageConverter());
+        rabbitTemplate.setMessageConverter(messageConverter);
         return rabbitTemplate;
     }
+
+    // Delivers up to batchSize messages, or what arrived within batchTimeout, as one listener call.
+    // Acknowledged together after the listener returns, rejected together if it throws.
+    // Static (as is messageConverter), because the listeners below are declared on this configuration class itself.
+    @Bean
+    public static SimpleRabbitListenerContainerFactory priceBatchContainerFactory(
+        ConnectionFactory connectionFactory,
+        Jackson2JsonMessageConverter messageConverter,
+        PriceIngestProperties properties
+    ) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(properties.getBatchSize());
+        factory.setReceiveTimeout(properties.getBatchTimeout().toMillis());
+        factory.setConcurrentConsumers(properties.getConcurrency());
+        factory.setPrefetchCount(Math.max(properties.getPrefetch(), properties.getBatchSize()));
+        return factory;
+    }
     
-    @RabbitListener(queues = {QUEUE_NAME})
-    public void receiveMessage(PriceDto priceDto) {
+    @RabbitListener(id = "priceListener", queues = {QUEUE_NAME}, autoStartup = "#{!" + BATCH_ENABLED + "}")
+    public void receiveMessage(PriceDto priceDto, @Header(name = AmqpHeaders.TIMESTAMP, required = false) Date timestamp) {
+        metrics.pricesReceived("single", 1);
+        metrics.priceMessagePublishedAt(timestamp);
         priceService.createPriceAndUpdateItem(priceDto);
     }
+
+    @RabbitListener(id = "priceBatchListener", queues = {QUEUE_NAME}, autoStartup = BATCH_ENABLED,
+        containerFactory = "priceBatchContainerFactory")
+    public void receiveMessages(List<Message<PriceDto>> messages) {
+        metrics.pricesReceived("batch", messages.size());
+        messages.forEach(message -> metrics.priceMessagePublishedAt(
+            message.getHeaders().get(AmqpHeaders.TIMESTAMP, Date.class)));
+
+        List<PriceDto> priceDtos = messages.stream().map(Message::getPayload).toList();
+        if (priceIngestProperties.shouldCoalesce()) {
+            priceDtos = PriceCoalescer.latestPerItem(priceDtos);
+        }
+        if (priceIngestLanes.isEnabled()) {
+            priceIngestLanes.apply(priceDtos);
+        } else {
+            priceService.createPricesAndUpdateItems(priceDtos);
+        }
+    }
+
+    @RabbitListener(id = "offerListener", queues = {OFFER_QUEUE_NAME})
+    public void receiveOffer(ScheduledOfferDto offerDto) {
+        try {
+            offerService.scheduleOffer(offerDto);
+        } catch (InvalidOfferException | EntityNotFoundException e) {
+            // Redelivering won't make it valid
+            throw new AmqpRejectAndDontRequeueException(e.getMessage(), e);
+        }
+    }
+
+    @RabbitListener(id = INVALIDATION_LISTENER_ID, queues = "#{invalidationQueue.name}")
+    public void receiveInvalidation(ItemInvalidationDto invalidation) {
+        itemInvalidationHandler.apply(invalidation);
+    }
+
+    // The queue was deleted with the lost connection, along with the invalidations sent until it was declared again
+    @EventListener
+    public void onConsumerRestarted(AsyncConsumerRestartedEvent event) {
+        if (event.getSource() instanceof AbstractMessageListenerContainer container
+            && INVALIDATION_LISTENER_ID.equals(container.getListenerId())) {
+            itemInvalidationHandler.applyAll();
+        }
+    }
 }
@@ -1,11 +1,18 @@
 package de.haiilo.supermarket.config;
 
+import de.haiilo.supermarket.mapper.CompactMapper;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
+    private final CompactMapper compactMapper;
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
@@ -15,4 +22,10 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true);
     }
+
+    // Appended after the JSON converter, so JSON stays the default unless a client asks for application/cbor
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2CborHttpMessageConverter(compactMapper.getCborMapper()));
+    }
 }
@@ -1,21 +1,199 @@
 package de.haiilo.supermarket.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import de.haiilo.supermarket.dto.CatalogChanges;
+import de.haiilo.supermarket.dto.HistoricalPriceDto;
 import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.dto.ItemPage;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import de.haiilo.supermarket.repository.ItemFilter;
+import de.haiilo.supermarket.service.CatalogService;
+import de.haiilo.supermarket.service.CatalogStreamService;
 import de.haiilo.supermarket.service.ItemService;
+import de.haiilo.supermarket.service.PriceHistoryService;
+import de.haiilo.supermarket.service.RenderedCatalog;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import javax.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/items")
 @RequiredArgsConstructor
 public class ItemController {
+    private final CatalogService catalogService;
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+    private final CatalogStreamService catalogStreamService;
+    private final PriceHistoryService priceHistoryService;
+    private final SupermarketMetrics metrics;
 
-    @GetMapping
-    public List<ItemDto> getItems() {
-        return itemService.getItems();
+    // Writes the pre-rendered catalog bytes, Jackson isn't involved per request.
+    // Kiosks asking for application/cbor get the compact binary catalog, everyone else JSON.
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<byte[]> getItems(
+        WebRequest request,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        RenderedCatalog catalog = catalogService.getRenderedCatalog();
+        boolean cbor = prefersCbor(accept);
+        // Weak ETag, because the same version is served with different content encodings
+        String eTag = "W/\"" + catalog.version() + (cbor ? "-cbor" : "") + "\"";
+        boolean notModified = request.checkNotModified(eTag);
+        metrics.catalogRequested(notModified);
+        if (notModified) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+            .cacheControl(CacheControl.noCache())
+            .eTag(eTag)
+            .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (cbor) {
+            // Already compact, not worth compressing
+            return response.body(catalog.cbor());
+        }
+        if (acceptsGzip(acceptEncoding)) {
+            return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(catalog.gzipJson());
+        }
+        return response.body(catalog.json());
+    }
+
+    // Items whose price or offer changed after sinceVersion. Falls back to the whole catalog
+    // when the version predates the last full reload, so clients can start with sinceVersion=0.
+    @GetMapping(params = "sinceVersion", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CatalogChanges> getItemChanges(@RequestParam long sinceVersion) {
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .body(catalogService.getChangesSince(sinceVersion));
+    }
+
+    // Keyset pagination straight from the database, for clients that don't need the whole catalog
+    @GetMapping(value = "/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ItemPage> getItemPage(
+        @RequestParam(defaultValue = "0") long after,
+        @RequestParam(defaultValue = "" + ItemService.DEFAULT_PAGE_SIZE) int size,
+        @RequestParam(required = false) Boolean hasOffer,
+        @RequestParam(required = false) String namePrefix
+    ) {
+        return ResponseEntity.ok(itemService.getItemPage(after, size, new ItemFilter(hasOffer, namePrefix)));
+    }
+
+    // All matching items as newline-delimited JSON, read and written page by page
+    // so neither side has to hold the whole result
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportItems(
+        @RequestParam(required = false) Boolean hasOffer,
+        @RequestParam(required = false) String namePrefix
+    ) {
+        ItemFilter filter = new ItemFilter(hasOffer, namePrefix);
+        ObjectWriter writer = objectMapper.writerFor(ItemDto.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = out -> {
+            Long after = 0L;
+            while (after != null) {
+                ItemPage page = itemService.getItemPage(after, ItemService.MAX_PAGE_SIZE, filter);
+                for (ItemDto item : page.items()) {
+                    writer.writeValue(out, item);
+                    out.write('\n');
+                }
+                out.flush();
+                after = page.nextCursor();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Price and offer as they were at the given time, now by default
+    @GetMapping("/{itemId}/price")
+    public ResponseEntity<HistoricalPriceDto> getPriceAt(
+        @PathVariable long itemId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at
+    ) {
+        LocalDateTime time = at != null ? at : LocalDateTime.now();
+        return ResponseEntity.ok(priceHistoryService.getPriceAt(itemId, time)
+            .orElseThrow(() -> new EntityNotFoundException("No price for item " + itemId + " at " + time)));
+    }
+
+    // Catalog deltas as server-sent events. Resumes after sinceVersion, or after the Last-Event-ID
+    // EventSource sends on reconnect, when that version is still buffered.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamItems(
+        @RequestParam(required = false) Long sinceVersion,
+        @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    ) {
+        return catalogStreamService.subscribe(sinceVersion != null ? sinceVersion : lastEventId);
+    }
+
+    // gzip;q=0 refuses gzip, and so does *;q=0 unless gzip is listed on its own
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        Boolean wildcard = null;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = qualityOf(parts) > 0;
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = accepted;
+            } else if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return gzip != null ? gzip : Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double qualityOf(String[] codingAndParameters) {
+        for (int i = 1; i < codingAndParameters.length; i++) {
+            String parameter = codingAndParameters[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // JSON wins ties, so only clients explicitly preferring CBOR get it
+    private static boolean prefersCbor(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortByQualityValue(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_CBOR)) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
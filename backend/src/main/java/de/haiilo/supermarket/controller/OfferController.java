@@ -0,0 +1,24 @@
+package de.haiilo.supermarket.controller;
+
+import de.haiilo.supermarket.dto.ScheduledOfferDto;
+import de.haiilo.supermarket.service.OfferService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/offers")
+@RequiredArgsConstructor
+public class OfferController {
+    private final OfferService offerService;
+
+    // Same as publishing the offer to offer.queue, but answers with the created offer
+    @PostMapping
+    public ResponseEntity<ScheduledOfferDto> scheduleOffer(@RequestBody ScheduledOfferDto offerDto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(offerService.scheduleOffer(offerDto));
+    }
+}
@@ -1,9 +1,16 @@
 package de.haiilo.supermarket.controller;
 
+import de.haiilo.supermarket.dto.BatchCheckoutRequest;
+import de.haiilo.supermarket.dto.BatchCheckoutResponse;
 import de.haiilo.supermarket.dto.CheckoutRequest;
 import de.haiilo.supermarket.dto.CheckoutResponse;
+import de.haiilo.supermarket.dto.CompactCheckoutRequest;
+import de.haiilo.supermarket.dto.QuoteResponse;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
 import de.haiilo.supermarket.service.OrderService;
+import java.io.InputStream;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -15,9 +22,39 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class OrderController {
     private final OrderService orderService;
+    private final SupermarketMetrics metrics;
 
     @PostMapping("/checkout")
     public ResponseEntity<CheckoutResponse> checkout(@RequestBody CheckoutRequest request) {
-        return ResponseEntity.ok(orderService.processCheckout(request));
+        CheckoutResponse response = metrics.timeCheckout(request.items().size(),
+            () -> orderService.processCheckout(request));
+        return ResponseEntity.ok(response);
+    }
+
+    // Binary checkout for kiosks, the response is CBOR too when accepted
+    @PostMapping(path = "/checkout", consumes = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<CheckoutResponse> checkoutCompact(@RequestBody CompactCheckoutRequest request) {
+        // Lines are validated by the service, a missing list is only counted as an empty cart here
+        int lineCount = request.lines() != null ? request.lines().size() : 0;
+        CheckoutResponse response = metrics.timeCheckout(lineCount, () -> orderService.processCheckout(request));
+        return ResponseEntity.ok(response);
+    }
+
+    // Replays the sales of an offline till, with a result per cart
+    @PostMapping("/checkout/batch")
+    public ResponseEntity<BatchCheckoutResponse> checkoutBatch(@RequestBody BatchCheckoutRequest request) {
+        return ResponseEntity.ok(orderService.processBatchCheckout(request));
+    }
+
+    // Same contract as /checkout, for carts too big to bind in one go. Duplicate lines of an item are summed up.
+    @PostMapping(path = "/checkout/stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CheckoutResponse> checkoutStream(InputStream body) {
+        CheckoutResponse response = metrics.timeCheckout(() -> orderService.processStreamingCheckout(body));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/quote")
+    public ResponseEntity<QuoteResponse> quote(@RequestBody CheckoutRequest request) {
+        return ResponseEntity.ok(orderService.quote(request));
     }
 }
\ No newline at end of file
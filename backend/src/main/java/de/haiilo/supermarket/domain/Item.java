@@ -4,28 +4,43 @@ import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.CascadeType;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "item")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Item.CACHE_REGION)
+@Table(name = "item", indexes = {
+    @Index(name = "idx_item_name", columnList = "name")
+})
 @Getter
 @Setter
 public class Item implements Serializable {
+    public static final String CACHE_REGION = "item";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String name;
 
+    // Bumped by every change of the current price or offer, so concurrent price writes can't overwrite each other
+    @Version
+    private Long version;
+
     @OneToOne
     @JoinColumn(name = "current_price_id")
     private Price currentPrice;
@@ -3,6 +3,7 @@ package de.haiilo.supermarket.domain;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import javax.persistence.Column;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
@@ -11,20 +12,32 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.PrePersist;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Offer.CACHE_REGION)
 @Table(name = "offer", uniqueConstraints = {
-    @UniqueConstraint(name = "uk_offer_item_created_at", columnNames = {"item_id", "created_at"})
+    @UniqueConstraint(name = "uk_offer_item_created_at", columnNames = {"item_id", "created_at"}),
+    // The latest started offer of an item is the one in effect, two can't start at once
+    @UniqueConstraint(name = "uk_offer_item_starts_at", columnNames = {"item_id", "starts_at"})
 })
 @Getter
 @Setter
 public class Offer extends OfferSnapshot implements Serializable {
+    public static final String ID_SEQUENCE = "offer_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String CACHE_REGION = "offer";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -33,10 +46,20 @@ public class Offer extends OfferSnapshot implements Serializable {
 
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
-    
+
+    @Column(name = "starts_at", nullable = false, updatable = false)
+    private LocalDateTime startsAt;
+
+    // Open-ended when null
+    @Column(name = "ends_at", updatable = false)
+    private LocalDateTime endsAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        if (startsAt == null) {
+            startsAt = createdAt;
+        }
     }
 
     @Override
@@ -14,6 +14,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.PrePersist;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
@@ -23,8 +24,14 @@ import lombok.Setter;
 @Getter
 @Setter
 public class Order implements Serializable {
+    // Ids are handed out in blocks of ID_ALLOCATION_SIZE starting at the sequence value (pooled-lo),
+    // OrderIdAllocator reserves blocks from the same sequence for orders written behind
+    public static final String ID_SEQUENCE = "kata_order_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -2,6 +2,7 @@ package de.haiilo.supermarket.domain;
 
 import java.time.LocalDateTime;
 import javax.persistence.Column;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
@@ -10,20 +11,31 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.PrePersist;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Price.CACHE_REGION)
 @Table(name = "price", uniqueConstraints = {
-    @UniqueConstraint(name = "uk_price_item_created_at", columnNames = {"item_id", "created_at"})
+    @UniqueConstraint(name = Price.UK_ITEM_CREATED_AT, columnNames = {"item_id", "created_at"})
 })
 @Getter
 @Setter
 public class Price {
+    public static final String ID_SEQUENCE = "price_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String UK_ITEM_CREATED_AT = "uk_price_item_created_at";
+    public static final String CACHE_REGION = "price";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -42,7 +54,9 @@ public class Price {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 
     @Override
@@ -0,0 +1,70 @@
+package de.haiilo.supermarket.domain;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+// A price change waiting to be published, written in the transaction of the change and deleted once the broker
+// confirmed it. Holds plain ids rather than associations, entries must not keep an item from being deleted.
+@Entity
+@Table(name = "price_outbox", indexes = {
+    @Index(name = "idx_price_outbox_item_version", columnList = "item_id, item_version, id")
+})
+@Getter
+@Setter
+public class PriceOutboxEntry {
+    public static final String ID_SEQUENCE = "price_outbox_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    // Version of the item after the change. Changes of an item commit in version order, ids don't:
+    // nodes and threads hand them out from separate blocks.
+    @Column(name = "item_version", nullable = false)
+    private Long itemVersion;
+
+    @Column(name = "price_id", nullable = false)
+    private Long priceId;
+
+    @Column(name = "price_value", nullable = false)
+    private Integer value;
+
+    @Column(name = "calculated_offer_price")
+    private Integer calculatedOfferPrice;
+
+    @Column(name = "offer_quantity")
+    private Integer offerQuantity;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // For a price just saved as the item's current one, the item is saved in the same transaction
+    public static PriceOutboxEntry of(Item item, Price price) {
+        var entry = new PriceOutboxEntry();
+        entry.setItemId(item.getId());
+        // A new item is inserted with version 0, an existing one is incremented once on flush
+        entry.setItemVersion(item.getVersion() == null ? 0L : item.getVersion() + 1);
+        entry.setPriceId(price.getId());
+        entry.setValue(price.getValue());
+        if (price.getCalculatedOfferPrice() != null && item.getCurrentOffer() != null) {
+            entry.setCalculatedOfferPrice(price.getCalculatedOfferPrice());
+            entry.setOfferQuantity(item.getCurrentOffer().getQuantity());
+        }
+        entry.setCreatedAt(price.getCreatedAt());
+        return entry;
+    }
+}
@@ -0,0 +1,23 @@
+package de.haiilo.supermarket.domain;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// One row per relay, locked for update while a node publishes a batch, so only one node relays at a time
+@Entity
+@Table(name = "relay_lock")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelayLock {
+    public static final String PRICE_OUTBOX = "price-outbox";
+
+    @Id
+    private String name;
+}
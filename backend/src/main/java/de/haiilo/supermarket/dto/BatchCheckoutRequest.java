@@ -0,0 +1,16 @@
+package de.haiilo.supermarket.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Sales queued by an offline till, replayed in one go
+public record BatchCheckoutRequest(
+    List<Sale> carts
+) {
+    // Same as a CheckoutRequest. With soldAt the sale is priced as of that time instead of with current prices.
+    public record Sale(
+        LocalDateTime soldAt,
+        List<CheckoutRequest.CartItem> items,
+        Integer total
+    ) {}
+}
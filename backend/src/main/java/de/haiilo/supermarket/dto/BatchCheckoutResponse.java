@@ -0,0 +1,13 @@
+package de.haiilo.supermarket.dto;
+
+import java.util.List;
+import lombok.Builder;
+
+// One result per cart in request order, failed carts carry the same error fields as a single checkout
+@Builder
+public record BatchCheckoutResponse(
+    List<CheckoutResponse> results,
+    Integer completed,
+    Integer failed,
+    Long catalogVersion
+) {}
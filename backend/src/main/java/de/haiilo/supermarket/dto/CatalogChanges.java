@@ -0,0 +1,12 @@
+package de.haiilo.supermarket.dto;
+
+import java.util.List;
+import lombok.Builder;
+
+@Builder
+public record CatalogChanges(
+    Long version,
+    // true when the requested version was too old, items is the whole catalog then
+    Boolean fullSnapshot,
+    List<ItemDto> items
+) {}
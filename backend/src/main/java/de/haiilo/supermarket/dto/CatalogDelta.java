@@ -0,0 +1,10 @@
+package de.haiilo.supermarket.dto;
+
+import java.util.List;
+import lombok.Builder;
+
+@Builder
+public record CatalogDelta(
+    Long version,
+    List<ItemDto> items
+) {}
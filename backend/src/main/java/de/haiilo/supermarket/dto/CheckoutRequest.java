@@ -4,8 +4,14 @@ import java.util.List;
 
 public record CheckoutRequest(
     List<CartItem> items,
-    Integer total
+    Integer total,
+    // Catalog version the cart was priced with. When it's still this node's current one, lines aren't validated one by one.
+    Long catalogVersion
 ) {
+    public CheckoutRequest(List<CartItem> items, Integer total) {
+        this(items, total, null);
+    }
+
     public record CartItem(
         ItemDto item,
         Integer quantity
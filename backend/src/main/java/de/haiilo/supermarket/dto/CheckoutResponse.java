@@ -5,6 +5,7 @@ import lombok.Builder;
 @Builder
 public record CheckoutResponse(
     String errorMessage,
+    Long orderId,
     Integer total,
     Integer actualPrice,
     Long itemIdWithPriceChange
@@ -0,0 +1,20 @@
+package de.haiilo.supermarket.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.List;
+
+// Binary (application/cbor) counterpart of CheckoutRequest with only what the checkout needs.
+// Lines are encoded as [itemId, quantity, expectedPrice] arrays instead of objects.
+public record CompactCheckoutRequest(
+    List<Line> lines,
+    Integer total
+) {
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"itemId", "quantity", "expectedPrice"})
+    public record Line(
+        Long itemId,
+        Integer quantity,
+        Integer expectedPrice
+    ) {}
+}
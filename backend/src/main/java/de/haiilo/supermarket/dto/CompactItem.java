@@ -0,0 +1,16 @@
+package de.haiilo.supermarket.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+// Binary (application/cbor) counterpart of ItemDto, encoded as [id, name, price, offerQuantity, offerPrice].
+// The offer fields are null for items without an offer.
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+@JsonPropertyOrder({"id", "name", "price", "offerQuantity", "offerPrice"})
+public record CompactItem(
+    Long id,
+    String name,
+    Integer price,
+    Integer offerQuantity,
+    Integer offerPrice
+) {}
@@ -0,0 +1,14 @@
+package de.haiilo.supermarket.dto;
+
+import java.time.LocalDateTime;
+import lombok.Builder;
+
+// Price and offer of an item as they were at a point in time, validFrom is when that price was created
+@Builder
+public record HistoricalPriceDto(
+    Long itemId,
+    LocalDateTime at,
+    LocalDateTime validFrom,
+    Integer price,
+    OfferDto offer
+) {}
@@ -7,5 +7,7 @@ public record ItemDto(
     Long id,
     String name,
     Integer currentPriceValue,
-    OfferDto currentOffer
+    OfferDto currentOffer,
+    // Item version, sent back with the checkout to validate the line without comparing prices
+    Long version
 ) {}
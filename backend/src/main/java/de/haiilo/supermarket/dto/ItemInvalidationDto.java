@@ -0,0 +1,16 @@
+package de.haiilo.supermarket.dto;
+
+import java.util.List;
+import lombok.Builder;
+
+// Items changed by one commit on one node, with their version after it.
+// The version is null for items that were deleted.
+@Builder
+public record ItemInvalidationDto(
+    List<ItemVersion> items
+) {
+    public record ItemVersion(
+        Long itemId,
+        Long version
+    ) {}
+}
@@ -0,0 +1,11 @@
+package de.haiilo.supermarket.dto;
+
+import java.util.List;
+import lombok.Builder;
+
+@Builder
+public record ItemPage(
+    List<ItemDto> items,
+    // Pass as "after" to get the next page, null on the last page
+    Long nextCursor
+) {}
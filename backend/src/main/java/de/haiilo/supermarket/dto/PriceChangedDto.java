@@ -0,0 +1,17 @@
+package de.haiilo.supermarket.dto;
+
+import java.time.LocalDateTime;
+import lombok.Builder;
+
+// Published for every price change, at least once: consumers drop ids they have seen, and changes of an item
+// older than its itemVersion they already have. Offer fields are null when the item has no offer.
+@Builder
+public record PriceChangedDto(
+    Long id,
+    Long itemId,
+    Long itemVersion,
+    Integer price,
+    Integer offerPrice,
+    Integer offerQuantity,
+    LocalDateTime changedAt
+) {}
@@ -0,0 +1,20 @@
+package de.haiilo.supermarket.dto;
+
+import java.util.List;
+import lombok.Builder;
+
+@Builder
+public record QuoteResponse(
+    List<QuoteLine> lines,
+    // Mix-and-match and basket promotions, on top of the line totals
+    Integer discount,
+    Integer total,
+    Long catalogVersion
+) {
+    public record QuoteLine(
+        Long itemId,
+        Integer quantity,
+        Integer unitPrice,
+        Integer total
+    ) {}
+}
@@ -0,0 +1,16 @@
+package de.haiilo.supermarket.dto;
+
+import java.time.LocalDateTime;
+import lombok.Builder;
+
+// An offer with the time it takes effect, immediately when startsAt is null, and an optional end.
+// The id is assigned on creation and ignored in requests.
+@Builder
+public record ScheduledOfferDto(
+    Long id,
+    Long itemId,
+    Integer quantity,
+    Integer discountPercentage,
+    LocalDateTime startsAt,
+    LocalDateTime endsAt
+) {}
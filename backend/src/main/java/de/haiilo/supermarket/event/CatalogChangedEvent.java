@@ -0,0 +1,8 @@
+package de.haiilo.supermarket.event;
+
+import java.util.Set;
+
+// Published inside the writing transaction, handled after commit to refresh the in-memory catalog
+public record CatalogChangedEvent(
+    Set<Long> itemIds
+) {}
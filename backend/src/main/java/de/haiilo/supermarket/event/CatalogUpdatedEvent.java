@@ -0,0 +1,12 @@
+package de.haiilo.supermarket.event;
+
+import de.haiilo.supermarket.dto.ItemDto;
+import java.util.List;
+
+// Published after a new catalog snapshot was swapped in.
+// A full reload carries no items, the changes it contains are unknown.
+public record CatalogUpdatedEvent(
+    long version,
+    List<ItemDto> changedItems,
+    boolean fullReload
+) {}
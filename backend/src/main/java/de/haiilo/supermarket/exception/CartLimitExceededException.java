@@ -0,0 +1,13 @@
+package de.haiilo.supermarket.exception;
+
+import lombok.Getter;
+
+@Getter
+public class CartLimitExceededException extends RuntimeException {
+    private final Integer limit;
+
+    public CartLimitExceededException(String message, Integer limit) {
+        super(message + " exceeds the limit of " + limit);
+        this.limit = limit;
+    }
+}
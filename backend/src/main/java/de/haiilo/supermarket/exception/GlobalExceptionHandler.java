@@ -39,6 +39,42 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
     }
     
+    @ExceptionHandler(InvalidCartException.class)
+    public ResponseEntity<CheckoutResponse> handleInvalidCartException(InvalidCartException ex) {
+        CheckoutResponse response = CheckoutResponse.builder()
+            .errorMessage(ex.getMessage())
+            .build();
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    @ExceptionHandler(InvalidOfferException.class)
+    public ResponseEntity<CheckoutResponse> handleInvalidOfferException(InvalidOfferException ex) {
+        CheckoutResponse response = CheckoutResponse.builder()
+            .errorMessage(ex.getMessage())
+            .build();
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    @ExceptionHandler(CartLimitExceededException.class)
+    public ResponseEntity<CheckoutResponse> handleCartLimitExceededException(CartLimitExceededException ex) {
+        CheckoutResponse response = CheckoutResponse.builder()
+            .errorMessage(ex.getMessage())
+            .build();
+
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
+    }
+
+    @ExceptionHandler(JournalUnavailableException.class)
+    public ResponseEntity<CheckoutResponse> handleJournalUnavailableException(JournalUnavailableException ex) {
+        CheckoutResponse response = CheckoutResponse.builder()
+            .errorMessage(ex.getMessage())
+            .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<CheckoutResponse> handleRuntimeException(RuntimeException ex) {
         CheckoutResponse response = CheckoutResponse.builder()
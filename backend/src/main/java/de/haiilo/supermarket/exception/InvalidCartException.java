@@ -0,0 +1,12 @@
+package de.haiilo.supermarket.exception;
+
+public class InvalidCartException extends RuntimeException {
+
+    public InvalidCartException(String message) {
+        super(message);
+    }
+
+    public InvalidCartException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
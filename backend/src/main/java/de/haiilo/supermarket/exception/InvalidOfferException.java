@@ -0,0 +1,12 @@
+package de.haiilo.supermarket.exception;
+
+public class InvalidOfferException extends RuntimeException {
+
+    public InvalidOfferException(String message) {
+        super(message);
+    }
+
+    public InvalidOfferException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
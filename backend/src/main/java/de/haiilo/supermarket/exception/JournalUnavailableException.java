@@ -0,0 +1,13 @@
+package de.haiilo.supermarket.exception;
+
+// The order journal is closing or didn't confirm an append in time, the checkout can be retried
+public class JournalUnavailableException extends RuntimeException {
+
+    public JournalUnavailableException(String message) {
+        super(message);
+    }
+
+    public JournalUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,36 @@
+package de.haiilo.supermarket.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import de.haiilo.supermarket.dto.CompactItem;
+import de.haiilo.supermarket.dto.ItemDto;
+import java.util.List;
+import lombok.Getter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+// Maps to the compact DTOs and owns the CBOR ObjectMapper. The mapper isn't a bean of its own,
+// because any ObjectMapper bean would replace the JSON one Spring Boot configures.
+@Component
+public class CompactMapper {
+    @Getter
+    private final ObjectMapper cborMapper;
+
+    public CompactMapper(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+    }
+
+    public CompactItem toCompactItem(ItemDto item) {
+        return new CompactItem(
+            item.id(),
+            item.name(),
+            item.currentPriceValue(),
+            item.currentOffer() != null ? item.currentOffer().quantity() : null,
+            item.currentOffer() != null ? item.currentOffer().finalPrice() : null
+        );
+    }
+
+    public List<CompactItem> toCompactItems(List<ItemDto> items) {
+        return items.stream().map(this::toCompactItem).toList();
+    }
+}
@@ -2,8 +2,11 @@ package de.haiilo.supermarket.mapper;
 
 import de.haiilo.supermarket.domain.Item;
 import de.haiilo.supermarket.domain.Offer;
+import de.haiilo.supermarket.domain.Price;
 import de.haiilo.supermarket.dto.ItemDto;
 import de.haiilo.supermarket.dto.OfferDto;
+import de.haiilo.supermarket.repository.ItemCatalogRow;
+import de.haiilo.supermarket.util.CompiledPrice;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -17,7 +20,48 @@ public class ItemMapper {
             item.getCurrentPrice().getValue(),
             currentOffer != null
                 ? new OfferDto(currentOffer.getQuantity(), item.getCurrentPrice().getCalculatedOfferPrice())
-                : null
+                : null,
+            item.getVersion()
+        );
+    }
+
+    public ItemDto toDto(ItemCatalogRow row) {
+        return new ItemDto(
+            row.id(),
+            row.name(),
+            row.price(),
+            row.offerId() != null
+                ? new OfferDto(row.offerQuantity(), row.calculatedOfferPrice())
+                : null,
+            row.version()
+        );
+    }
+
+    public CompiledPrice toCompiledPrice(Item item) {
+        Price currentPrice = item.getCurrentPrice();
+        Offer currentOffer = item.getCurrentOffer();
+        if (currentOffer == null || currentPrice.getCalculatedOfferPrice() == null) {
+            return new CompiledPrice(currentPrice.getValue(), 0, 0, 0, 0);
+        }
+        return new CompiledPrice(
+            currentPrice.getValue(),
+            currentOffer.getQuantity(),
+            currentPrice.getCalculatedOfferPrice(),
+            currentOffer.getId(),
+            currentOffer.getDiscountPercentage()
+        );
+    }
+
+    public CompiledPrice toCompiledPrice(ItemCatalogRow row) {
+        if (row.offerId() == null || row.calculatedOfferPrice() == null) {
+            return new CompiledPrice(row.price(), 0, 0, 0, 0);
+        }
+        return new CompiledPrice(
+            row.price(),
+            row.offerQuantity(),
+            row.calculatedOfferPrice(),
+            row.offerId(),
+            row.offerDiscountPercentage()
         );
     }
 }
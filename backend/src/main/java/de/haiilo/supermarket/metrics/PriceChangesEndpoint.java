@@ -0,0 +1,24 @@
+package de.haiilo.supermarket.metrics;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+// /actuator/pricechanges?limit=N, the items whose price changes most often.
+// Not a Prometheus meter, tagging one by item would add a time series per SKU.
+@Component
+@Endpoint(id = "pricechanges")
+@RequiredArgsConstructor
+public class PriceChangesEndpoint {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SupermarketMetrics metrics;
+
+    @ReadOperation
+    public List<SupermarketMetrics.ItemPriceChanges> topPriceChanges(@Nullable Integer limit) {
+        return metrics.topPriceChanges(limit != null && limit > 0 ? limit : DEFAULT_LIMIT);
+    }
+}
@@ -0,0 +1,204 @@
+package de.haiilo.supermarket.metrics;
+
+import de.haiilo.supermarket.exception.PriceChangedException;
+import de.haiilo.supermarket.exception.TotalMismatchException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+// All application meters in one place, exposed on /actuator/prometheus.
+// Meters without dynamic tags are registered once, the rest are looked up by the registry per call.
+@Component
+public class SupermarketMetrics {
+    public static final String CHECKOUT = "supermarket.checkout";
+    public static final String CHECKOUT_CART_LINES = "supermarket.checkout.cart.lines";
+    public static final String PRICE_INGEST_MESSAGES = "supermarket.price.ingest.messages";
+    public static final String PRICE_INGEST_BATCH_SIZE = "supermarket.price.ingest.batch.size";
+    public static final String PRICE_INGEST_LAG = "supermarket.price.ingest.lag";
+    public static final String PRICE_INGEST_LANE_DEPTH = "supermarket.price.ingest.lane.depth";
+    public static final String PRICE_CHANGES = "supermarket.price.changes";
+    public static final String PRICE_WRITE_CONFLICTS = "supermarket.price.write.conflicts";
+    public static final String PRICE_OUTBOX_RELAYED = "supermarket.price.outbox.relayed";
+    public static final String CATALOG_RENDER = "supermarket.catalog.render";
+    public static final String CATALOG_REQUESTS = "supermarket.catalog.requests";
+    public static final String CATALOG_RELOAD = "supermarket.catalog.reload";
+    public static final String ITEM_INVALIDATIONS = "supermarket.item.invalidations";
+
+    private final MeterRegistry registry;
+    private final DistributionSummary cartLines;
+    private final DistributionSummary priceBatchSize;
+    private final Timer priceIngestLag;
+    private final Counter priceChanges;
+    private final Counter priceWriteConflicts;
+    private final Counter catalogRenderHits;
+    private final Counter catalogRenderMisses;
+    private final Counter catalogRequestsServed;
+    private final Counter catalogRequestsNotModified;
+    // Per item, but kept off the registry: one entry per catalog item, read on /actuator/pricechanges
+    private final Map<Long, LongAdder> priceChangesByItem = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    public SupermarketMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.cartLines = DistributionSummary.builder(CHECKOUT_CART_LINES)
+            .description("Lines per checked out cart")
+            .baseUnit("lines")
+            .serviceLevelObjectives(1, 5, 10, 25, 50, 100, 250, 500)
+            .register(registry);
+        this.priceBatchSize = DistributionSummary.builder(PRICE_INGEST_BATCH_SIZE)
+            .description("Price messages per consumed batch")
+            .baseUnit("messages")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.priceIngestLag = Timer.builder(PRICE_INGEST_LAG)
+            .description("Time from publishing a price message to consuming it, if the publisher set a timestamp")
+            .publishPercentileHistogram()
+            .register(registry);
+        // Not tagged by item, that would be one time series per SKU
+        this.priceChanges = Counter.builder(PRICE_CHANGES)
+            .description("Prices changed, over all items")
+            .register(registry);
+        this.priceWriteConflicts = Counter.builder(PRICE_WRITE_CONFLICTS)
+            .description("Price writes retried because the item was changed concurrently")
+            .register(registry);
+        this.catalogRenderHits = catalogRender("hit");
+        this.catalogRenderMisses = catalogRender("miss");
+        this.catalogRequestsServed = catalogRequests("served");
+        this.catalogRequestsNotModified = catalogRequests("not_modified");
+    }
+
+    // Times the whole checkout including the commit, tagged by outcome
+    public <T> T timeCheckout(int cartLineCount, Supplier<T> checkout) {
+        cartLines.record(cartLineCount);
+        return timeCheckout(checkout);
+    }
+
+    // For checkouts whose cart size isn't known upfront
+    public <T> T timeCheckout(Supplier<T> checkout) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        String exception = "none";
+        try {
+            T result = checkout.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            outcome = e instanceof PriceChangedException ? "price_changed"
+                : e instanceof TotalMismatchException ? "total_mismatch"
+                : "error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(CHECKOUT)
+                .description("Checkout latency")
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(registry));
+        }
+    }
+
+    public void pricesReceived(String mode, int count) {
+        registry.counter(PRICE_INGEST_MESSAGES, "mode", mode).increment(count);
+        if ("batch".equals(mode)) {
+            priceBatchSize.record(count);
+        }
+    }
+
+    public void priceMessagePublishedAt(Date timestamp) {
+        if (timestamp != null) {
+            priceIngestLag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - timestamp.getTime())));
+        }
+    }
+
+    // The returned counter is read by the gauge, the lane keeps it up to date
+    public AtomicInteger priceLaneDepth(int lane) {
+        AtomicInteger depth = new AtomicInteger();
+        Gauge.builder(PRICE_INGEST_LANE_DEPTH, depth, AtomicInteger::get)
+            .description("Prices handed to an ingest lane and not yet committed")
+            .baseUnit("messages")
+            .tag("lane", Integer.toString(lane))
+            .register(registry);
+        return depth;
+    }
+
+    // Called once the prices are committed, so retried and rolled back writes don't count
+    public void pricesChanged(Collection<Long> itemIds) {
+        priceChanges.increment(itemIds.size());
+        for (Long itemId : itemIds) {
+            priceChangesByItem.computeIfAbsent(itemId, id -> new LongAdder()).increment();
+        }
+    }
+
+    // The items changed most often since startup, with their average changes per minute
+    public List<ItemPriceChanges> topPriceChanges(int limit) {
+        double minutes = Math.max(1, System.currentTimeMillis() - startedAt) / 60_000.0;
+        return priceChangesByItem.entrySet().stream()
+            .map(entry -> new ItemPriceChanges(entry.getKey(), entry.getValue().sum(), entry.getValue().sum() / minutes))
+            .sorted(Comparator.comparingLong(ItemPriceChanges::changes).reversed()
+                .thenComparingLong(ItemPriceChanges::itemId))
+            .limit(limit)
+            .toList();
+    }
+
+    public void priceWriteConflict() {
+        priceWriteConflicts.increment();
+    }
+
+    // published once confirmed, failed ones stay in the outbox and count again with every run
+    public void priceChangesRelayed(String outcome, int count) {
+        registry.counter(PRICE_OUTBOX_RELAYED, "outcome", outcome).increment(count);
+    }
+
+    public void catalogRendered(boolean cacheHit) {
+        (cacheHit ? catalogRenderHits : catalogRenderMisses).increment();
+    }
+
+    public void catalogRequested(boolean notModified) {
+        (notModified ? catalogRequestsNotModified : catalogRequestsServed).increment();
+    }
+
+    public Timer catalogReload(String scope) {
+        return registry.timer(CATALOG_RELOAD, "scope", scope);
+    }
+
+    // published by the changing node, applied or ignored (already up to date) by the receiving ones
+    public void itemsInvalidated(String outcome, int count) {
+        if (count > 0) {
+            registry.counter(ITEM_INVALIDATIONS, "outcome", outcome).increment(count);
+        }
+    }
+
+    private Counter catalogRender(String result) {
+        return Counter.builder(CATALOG_RENDER)
+            .description("Catalog reads answered from the pre-rendered bytes (hit) or rendering them (miss)")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private Counter catalogRequests(String result) {
+        return Counter.builder(CATALOG_REQUESTS)
+            .description("Catalog requests, not_modified were answered from the client cache")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    public record ItemPriceChanges(
+        long itemId,
+        long changes,
+        double perMinute
+    ) {}
+}
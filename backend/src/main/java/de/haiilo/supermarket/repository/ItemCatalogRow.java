@@ -0,0 +1,14 @@
+package de.haiilo.supermarket.repository;
+
+// An item with its current price and offer as one flat row, selected without hydrating any entity.
+// Offer columns are null when the item has no current offer.
+public record ItemCatalogRow(
+    Long id,
+    Long version,
+    String name,
+    Integer price,
+    Integer calculatedOfferPrice,
+    Long offerId,
+    Integer offerQuantity,
+    Integer offerDiscountPercentage
+) {}
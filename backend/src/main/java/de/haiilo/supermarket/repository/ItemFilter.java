@@ -0,0 +1,7 @@
+package de.haiilo.supermarket.repository;
+
+// Null fields don't filter
+public record ItemFilter(
+    Boolean hasOffer,
+    String namePrefix
+) {}
@@ -1,9 +1,42 @@
 package de.haiilo.supermarket.repository;
 
 import de.haiilo.supermarket.domain.Item;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+// currentPrice and currentOffer are eager, findAll/findAllById resolve them with one select per item.
+// The queries below load them in the same statement instead.
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
+
+    @Query("""
+        select i from Item i
+        left join fetch i.currentPrice
+        left join fetch i.currentOffer
+        where i.id in :ids""")
+    List<Item> findAllWithCurrentPriceAndOfferById(@Param("ids") Collection<Long> ids);
+
+    // Read paths that only need the current price and offer
+    @Query("""
+        select new de.haiilo.supermarket.repository.ItemCatalogRow(
+            i.id, i.version, i.name, p.value, p.calculatedOfferPrice, o.id, o.quantity, o.discountPercentage)
+        from Item i
+        left join i.currentPrice p
+        left join i.currentOffer o
+        order by i.id""")
+    List<ItemCatalogRow> findCatalogRows();
+
+    @Query("""
+        select new de.haiilo.supermarket.repository.ItemCatalogRow(
+            i.id, i.version, i.name, p.value, p.calculatedOfferPrice, o.id, o.quantity, o.discountPercentage)
+        from Item i
+        left join i.currentPrice p
+        left join i.currentOffer o
+        where i.id in :ids
+        order by i.id""")
+    List<ItemCatalogRow> findCatalogRowsById(@Param("ids") Collection<Long> ids);
 }
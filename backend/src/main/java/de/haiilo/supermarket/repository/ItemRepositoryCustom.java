@@ -0,0 +1,11 @@
+package de.haiilo.supermarket.repository;
+
+import de.haiilo.supermarket.domain.Item;
+import java.util.List;
+
+public interface ItemRepositoryCustom {
+
+    // Keyset page: up to limit items with an id greater than afterId, in id order,
+    // fetched together with their current price and offer in a single statement
+    List<Item> findPage(long afterId, int limit, ItemFilter filter);
+}
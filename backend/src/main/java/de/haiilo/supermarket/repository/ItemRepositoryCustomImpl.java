@@ -0,0 +1,44 @@
+package de.haiilo.supermarket.repository;
+
+import de.haiilo.supermarket.domain.Item;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+// The query only contains the filters that are set. A page is read along the primary key from afterId on,
+// the filters are checked on the rows read, so a filter matching few items reads more rows per page.
+// The name filter is a case-sensitive prefix match, which the name index could serve on its own, but not in id order.
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Item> findPage(long afterId, int limit, ItemFilter filter) {
+        StringBuilder jpql = new StringBuilder("""
+            select i from Item i
+            left join fetch i.currentPrice
+            left join fetch i.currentOffer
+            where i.id > :afterId""");
+        if (filter.hasOffer() != null) {
+            jpql.append(filter.hasOffer() ? " and i.currentOffer is not null" : " and i.currentOffer is null");
+        }
+        boolean byName = filter.namePrefix() != null && !filter.namePrefix().isEmpty();
+        if (byName) {
+            jpql.append(" and i.name like :namePattern escape '\\'");
+        }
+        jpql.append(" order by i.id");
+
+        TypedQuery<Item> query = entityManager.createQuery(jpql.toString(), Item.class)
+            .setParameter("afterId", afterId)
+            .setMaxResults(limit);
+        if (byName) {
+            query.setParameter("namePattern", escapeLike(filter.namePrefix()) + "%");
+        }
+        return query.getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
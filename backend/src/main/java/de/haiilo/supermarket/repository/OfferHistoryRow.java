@@ -0,0 +1,13 @@
+package de.haiilo.supermarket.repository;
+
+import java.time.LocalDateTime;
+
+// One row of the offer table, without hydrating the entity
+public record OfferHistoryRow(
+    Long itemId,
+    LocalDateTime startsAt,
+    LocalDateTime endsAt,
+    Long id,
+    Integer quantity,
+    Integer discountPercentage
+) {}
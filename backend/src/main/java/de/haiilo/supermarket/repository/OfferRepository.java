@@ -1,9 +1,47 @@
 package de.haiilo.supermarket.repository;
 
 import de.haiilo.supermarket.domain.Offer;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OfferRepository extends JpaRepository<Offer, Long> {
+
+    // Ordered for building per-item timelines, backed by uk_offer_item_starts_at.
+    // Offers scheduled to start after :until aren't history yet.
+    @Query("""
+        select new de.haiilo.supermarket.repository.OfferHistoryRow(
+            o.item.id, o.startsAt, o.endsAt, o.id, o.quantity, o.discountPercentage)
+        from Offer o
+        where o.startsAt <= :until
+        order by o.item.id, o.startsAt""")
+    List<OfferHistoryRow> findHistoryRows(@Param("until") LocalDateTime until);
+
+    @Query("""
+        select new de.haiilo.supermarket.repository.OfferHistoryRow(
+            o.item.id, o.startsAt, o.endsAt, o.id, o.quantity, o.discountPercentage)
+        from Offer o
+        where o.item.id in :itemIds and o.startsAt > :since and o.startsAt <= :until
+        order by o.item.id, o.startsAt""")
+    List<OfferHistoryRow> findHistoryRowsByItemIdAfter(
+        @Param("itemIds") Collection<Long> itemIds,
+        @Param("since") LocalDateTime since,
+        @Param("until") LocalDateTime until
+    );
+
+    List<Offer> findByItemIdIn(Collection<Long> itemIds);
+
+    // Offers with a start or end still ahead, to be put on the timer wheel after a restart
+    @Query("""
+        select o from Offer o
+        where o.startsAt > :now or o.endsAt > :now""")
+    List<Offer> findWithTransitionsAfter(@Param("now") LocalDateTime now);
+
+    @Query("select distinct o.item.id from Offer o")
+    List<Long> findItemIdsWithOffers();
 }
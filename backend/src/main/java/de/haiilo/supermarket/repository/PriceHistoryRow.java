@@ -0,0 +1,11 @@
+package de.haiilo.supermarket.repository;
+
+import java.time.LocalDateTime;
+
+// One row of the price table, without hydrating the entity
+public record PriceHistoryRow(
+    Long itemId,
+    LocalDateTime createdAt,
+    Integer value,
+    Integer calculatedOfferPrice
+) {}
@@ -0,0 +1,28 @@
+package de.haiilo.supermarket.repository;
+
+import de.haiilo.supermarket.domain.PriceOutboxEntry;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PriceOutboxRepository extends JpaRepository<PriceOutboxEntry, Long> {
+
+    // Items waiting longest first, so a busy item doesn't hold back the others
+    @Query("""
+        select e.itemId from PriceOutboxEntry e
+        group by e.itemId
+        order by min(e.id)""")
+    List<Long> findItemIdsWaitingLongest(Pageable pageable);
+
+    // Entries of an item in the order they were committed, backed by idx_price_outbox_item_version
+    @Query("""
+        select e from PriceOutboxEntry e
+        where e.itemId in :itemIds
+        order by e.itemId, e.itemVersion, e.id""")
+    List<PriceOutboxEntry> findByItemIdInCommitOrder(@Param("itemIds") Collection<Long> itemIds, Pageable pageable);
+}
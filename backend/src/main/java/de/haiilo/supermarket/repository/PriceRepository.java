@@ -1,9 +1,33 @@
 package de.haiilo.supermarket.repository;
 
 import de.haiilo.supermarket.domain.Price;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PriceRepository extends JpaRepository<Price, Long> {
+
+    // Ordered for building per-item timelines, backed by uk_price_item_created_at
+    @Query("""
+        select new de.haiilo.supermarket.repository.PriceHistoryRow(
+            p.item.id, p.createdAt, p.value, p.calculatedOfferPrice)
+        from Price p
+        order by p.item.id, p.createdAt""")
+    List<PriceHistoryRow> findHistoryRows();
+
+    @Query("""
+        select new de.haiilo.supermarket.repository.PriceHistoryRow(
+            p.item.id, p.createdAt, p.value, p.calculatedOfferPrice)
+        from Price p
+        where p.item.id in :itemIds and p.createdAt > :since
+        order by p.item.id, p.createdAt""")
+    List<PriceHistoryRow> findHistoryRowsByItemIdAfter(
+        @Param("itemIds") Collection<Long> itemIds,
+        @Param("since") LocalDateTime since
+    );
 }
@@ -0,0 +1,16 @@
+package de.haiilo.supermarket.repository;
+
+import de.haiilo.supermarket.domain.RelayLock;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RelayLockRepository extends JpaRepository<RelayLock, String> {
+
+    // Held until the calling transaction ends. Empty while another transaction holds it, rather than waiting.
+    @Query(value = "select name from relay_lock where name = :name for update skip locked", nativeQuery = true)
+    Optional<String> tryLock(@Param("name") String name);
+}
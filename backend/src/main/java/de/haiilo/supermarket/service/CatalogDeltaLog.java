@@ -0,0 +1,51 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.dto.CatalogDelta;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+// Ring buffer of the latest catalog deltas. Every change after baseVersion is buffered,
+// so a client at any version from baseVersion on can catch up from it. Not thread-safe.
+public class CatalogDeltaLog {
+    private final int capacity;
+    private final Deque<CatalogDelta> deltas;
+
+    private long baseVersion;
+    private long latestVersion;
+
+    public CatalogDeltaLog(int capacity) {
+        this.capacity = capacity;
+        this.deltas = new ArrayDeque<>(capacity);
+    }
+
+    public void append(CatalogDelta delta) {
+        if (deltas.size() == capacity) {
+            baseVersion = deltas.removeFirst().version();
+        }
+        deltas.addLast(delta);
+        latestVersion = delta.version();
+    }
+
+    // Changes before a full reload are unknown, clients older than it have to reload as well
+    public void reset(long version) {
+        deltas.clear();
+        baseVersion = version;
+        latestVersion = version;
+    }
+
+    // Deltas after the given version, empty when the version is no longer (or not yet) covered
+    public Optional<List<CatalogDelta>> since(long version) {
+        if (version < baseVersion || version > latestVersion) {
+            return Optional.empty();
+        }
+        return Optional.of(deltas.stream()
+            .filter(delta -> delta.version() > version)
+            .toList());
+    }
+
+    public long getLatestVersion() {
+        return latestVersion;
+    }
+}
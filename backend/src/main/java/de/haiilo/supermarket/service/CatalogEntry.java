@@ -0,0 +1,15 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.util.CompiledPrice;
+
+// changeVersion is the catalog version that last changed the entry, stamped by CatalogService
+public record CatalogEntry(
+    ItemDto item,
+    CompiledPrice price,
+    long changeVersion
+) {
+    public CatalogEntry withChangeVersion(long version) {
+        return new CatalogEntry(item, price, version);
+    }
+}
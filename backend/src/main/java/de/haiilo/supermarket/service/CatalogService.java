@@ -0,0 +1,112 @@
+package de.haiilo.supermarket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haiilo.supermarket.dto.CatalogChanges;
+import de.haiilo.supermarket.event.CatalogChangedEvent;
+import de.haiilo.supermarket.event.CatalogUpdatedEvent;
+import de.haiilo.supermarket.mapper.CompactMapper;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Service
+@RequiredArgsConstructor
+public class CatalogService {
+    // Versions count up from a random epoch in the upper bits, so a version handed out by another node
+    // or before a restart is outside the range this process knows, and is answered like an outdated one:
+    // no 304, the whole catalog instead of a delta, a reset instead of a replay.
+    // 21 + 32 bits stay exact as a JavaScript number.
+    private static final int EPOCH_BITS = 21;
+    private static final int COUNTER_BITS = 32;
+
+    private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+    private final CompactMapper compactMapper;
+    private final SupermarketMetrics metrics;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.empty(
+        ThreadLocalRandom.current().nextLong(1, 1L << EPOCH_BITS) << COUNTER_BITS);
+    private volatile RenderedCatalog rendered;
+
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // Rendered lazily on the first read of a version, so bursts of price updates don't re-serialize
+    // the catalog for versions nobody reads. Concurrent renders of the same version are harmless.
+    public RenderedCatalog getRenderedCatalog() {
+        CatalogSnapshot current = snapshot;
+        RenderedCatalog cached = rendered;
+        boolean cacheHit = cached != null && cached.version() == current.version();
+        if (!cacheHit) {
+            cached = RenderedCatalog.render(current, objectMapper, compactMapper);
+            rendered = cached;
+        }
+        metrics.catalogRendered(cacheHit);
+        return cached;
+    }
+
+    public CatalogChanges getChangesSince(long sinceVersion) {
+        CatalogSnapshot current = snapshot;
+        return current.changedSince(sinceVersion)
+            .map(items -> CatalogChanges.builder()
+                .version(current.version())
+                .fullSnapshot(false)
+                .items(items)
+                .build())
+            .orElseGet(() -> CatalogChanges.builder()
+                .version(current.version())
+                .fullSnapshot(true)
+                .items(current.items())
+                .build());
+    }
+
+    // Full reload, used on startup and whenever the catalog was changed bypassing the services
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void refresh() {
+        long version = snapshot.version() + 1;
+        snapshot = metrics.catalogReload("full").record(() -> CatalogSnapshot.of(version, version,
+            itemService.getCatalogEntries().stream().map(entry -> entry.withChangeVersion(version)).toList()));
+        eventPublisher.publishEvent(new CatalogUpdatedEvent(snapshot.version(), List.of(), true));
+    }
+
+    // Updates are serialized, and changed items are re-read after commit,
+    // so the latest swap always reflects the latest committed state.
+    // First after commit, so other listeners of the event see the reloaded items.
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        reload(event.itemIds());
+    }
+
+    // Also called for items changed by another node, whose commit this node has no event of
+    public synchronized void reload(Collection<Long> itemIds) {
+        long version = snapshot.version() + 1;
+        List<CatalogEntry> changedEntries = metrics.catalogReload("partial").record(() -> {
+            Map<Long, CatalogEntry> entriesById = new TreeMap<>();
+            snapshot.entries().forEach(entry -> entriesById.put(entry.item().id(), entry));
+            itemIds.forEach(entriesById::remove);
+            List<CatalogEntry> reloaded = itemService.getCatalogEntries(itemIds).stream()
+                .map(entry -> entry.withChangeVersion(version))
+                .toList();
+            reloaded.forEach(entry -> entriesById.put(entry.item().id(), entry));
+
+            snapshot = CatalogSnapshot.of(version, snapshot.baseVersion(), entriesById.values());
+            return reloaded;
+        });
+        eventPublisher.publishEvent(new CatalogUpdatedEvent(
+            snapshot.version(), changedEntries.stream().map(CatalogEntry::item).toList(), false));
+    }
+}
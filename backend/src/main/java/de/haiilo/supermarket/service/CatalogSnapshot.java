@@ -0,0 +1,69 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.util.CompiledPrice;
+import de.haiilo.supermarket.util.ItemIdIndex;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Immutable, pre-mapped view of the catalog. Replaced as a whole on every change, never mutated.
+// baseVersion is the version of the last full reload, changes of every entry since then are tracked.
+public record CatalogSnapshot(
+    long version,
+    long baseVersion,
+    List<CatalogEntry> entries,
+    List<ItemDto> items,
+    ItemIdIndex index
+) implements ItemPrices {
+    public static CatalogSnapshot empty(long version) {
+        return of(version, version, List.of());
+    }
+
+    // Entries are expected in item id order
+    public static CatalogSnapshot of(long version, long baseVersion, Collection<CatalogEntry> entries) {
+        List<CatalogEntry> entryList = List.copyOf(entries);
+        long[] itemIds = new long[entryList.size()];
+        for (int i = 0; i < itemIds.length; i++) {
+            itemIds[i] = entryList.get(i).item().id();
+        }
+        return new CatalogSnapshot(
+            version,
+            baseVersion,
+            entryList,
+            entryList.stream().map(CatalogEntry::item).toList(),
+            new ItemIdIndex(itemIds)
+        );
+    }
+
+    // Items changed after the given version, empty when the version isn't covered by this snapshot
+    public Optional<List<ItemDto>> changedSince(long sinceVersion) {
+        if (sinceVersion < baseVersion || sinceVersion > version) {
+            return Optional.empty();
+        }
+        return Optional.of(entries.stream()
+            .filter(entry -> entry.changeVersion() > sinceVersion)
+            .map(CatalogEntry::item)
+            .toList());
+    }
+
+    // Versions are unique across nodes and restarts, so a match means the client was priced with exactly this snapshot
+    public boolean isVersion(Long catalogVersion) {
+        return catalogVersion != null && catalogVersion == version;
+    }
+
+    // Returns null when the item is unknown
+    public CatalogEntry find(long itemId) {
+        int position = index.positionOf(itemId);
+        return position < 0 ? null : entries.get(position);
+    }
+
+    @Override
+    public CompiledPrice priceOf(long itemId) {
+        CatalogEntry entry = find(itemId);
+        if (entry == null) {
+            throw new IllegalStateException("Item not found in catalog: " + itemId);
+        }
+        return entry.price();
+    }
+}
@@ -0,0 +1,206 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.config.CatalogStreamProperties;
+import de.haiilo.supermarket.dto.CatalogDelta;
+import de.haiilo.supermarket.event.CatalogUpdatedEvent;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Pushes catalog deltas to subscribed clients as server-sent events, one "price" event per catalog version.
+// Subscriptions and broadcasts run on a single thread, so a resuming client gets its missed deltas
+// and then the live ones without gaps or duplicates. Clients that can't resume get a "reset" event
+// and are expected to reload the whole catalog.
+// The broadcast only queues the events, subscribers are written to by a small pool of senders,
+// so a slow client doesn't hold up the broadcast. One that falls behind its queue gets a "reset" event as well.
+@Slf4j
+@Service
+public class CatalogStreamService {
+    public static final String PRICE_EVENT = "price";
+    public static final String RESET_EVENT = "reset";
+
+    private final long emitterTimeout;
+    private final int subscriberQueueSize;
+    private final CatalogDeltaLog deltaLog;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService broadcaster = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger senderCount = new AtomicInteger();
+    // Bounded, however many clients are connected. At most one task per subscriber is queued,
+    // events for subscribers waiting on a sender pile up in their own bounded queues meanwhile.
+    private final ExecutorService senders;
+
+    public CatalogStreamService(CatalogStreamProperties properties) {
+        this.emitterTimeout = properties.getEmitterTimeout().toMillis();
+        this.subscriberQueueSize = properties.getSubscriberQueueSize();
+        this.deltaLog = new CatalogDeltaLog(properties.getBufferSize());
+        this.senders = Executors.newFixedThreadPool(properties.getSenderThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "catalog-stream-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Without a version the client only gets changes from now on
+    public SseEmitter subscribe(Long sinceVersion) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        emitter.onTimeout(emitter::complete);
+        broadcaster.execute(() -> {
+            if (sinceVersion != null) {
+                replay(subscriber, sinceVersion);
+            }
+            subscribers.add(subscriber);
+        });
+        return emitter;
+    }
+
+    @EventListener
+    public void onCatalogUpdated(CatalogUpdatedEvent event) {
+        broadcaster.execute(() -> {
+            if (event.fullReload()) {
+                // Nothing tells which items changed, e.g. after invalidations from other nodes were missed,
+                // so every client reloads. One too far behind to even take the reset is dropped and reconnects.
+                deltaLog.reset(event.version());
+                Event reset = resetEvent();
+                subscribers.removeIf(subscriber -> !subscriber.enqueueReset(reset));
+                return;
+            }
+            CatalogDelta delta = new CatalogDelta(event.version(), event.changedItems());
+            deltaLog.append(delta);
+            Event price = new Event(PRICE_EVENT, delta.version(), delta);
+            subscribers.removeIf(subscriber -> !subscriber.enqueue(price));
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        broadcaster.shutdown();
+        senders.shutdown();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void replay(Subscriber subscriber, long sinceVersion) {
+        Optional<List<CatalogDelta>> missed = deltaLog.since(sinceVersion);
+        if (missed.isEmpty()) {
+            subscriber.enqueue(resetEvent());
+            return;
+        }
+        for (CatalogDelta delta : missed.get()) {
+            subscriber.enqueue(new Event(PRICE_EVENT, delta.version(), delta));
+        }
+    }
+
+    private Event resetEvent() {
+        long latestVersion = deltaLog.getLatestVersion();
+        return new Event(RESET_EVENT, latestVersion, Map.of("version", latestVersion));
+    }
+
+    private boolean send(SseEmitter emitter, Event event) {
+        try {
+            emitter.send(SseEmitter.event()
+                .id(Long.toString(event.version()))
+                .name(event.name())
+                .data(event.data(), MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The container completes the emitter of a broken connection itself
+            log.debug("Dropping catalog stream subscriber", e);
+            return false;
+        }
+    }
+
+    private record Event(
+        String name,
+        long version,
+        Object data
+    ) {}
+
+    // Events are queued by the broadcaster and sent in order by one sender task at a time
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<Event> queue = new ArrayDeque<>();
+        private boolean sending;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Runs on the broadcaster thread, false when the subscriber is gone or was dropped
+        synchronized boolean enqueueReset(Event reset) {
+            if (!closed && queue.size() >= subscriberQueueSize) {
+                log.debug("Catalog stream subscriber fell {} events behind a full reload, dropping it", queue.size());
+                closed = true;
+                queue.clear();
+                emitter.complete();
+            }
+            return enqueue(reset);
+        }
+
+        // Runs on the broadcaster thread, the reset is built there so it can't miss a later delta
+        synchronized boolean enqueue(Event event) {
+            if (closed) {
+                return false;
+            }
+            if (queue.size() >= subscriberQueueSize) {
+                log.debug("Catalog stream subscriber fell {} events behind, resetting it", queue.size());
+                queue.clear();
+                queue.add(resetEvent());
+            } else {
+                queue.add(event);
+            }
+            if (!sending) {
+                sending = true;
+                senders.execute(this::sendQueued);
+            }
+            return true;
+        }
+
+        private void sendQueued() {
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    event = queue.poll();
+                    if (event == null) {
+                        sending = false;
+                        return;
+                    }
+                }
+                if (!send(emitter, event)) {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        // Also called by the emitter once the connection completed, failed or timed out
+        void close() {
+            synchronized (this) {
+                closed = true;
+                sending = false;
+                queue.clear();
+            }
+            subscribers.remove(this);
+        }
+    }
+}
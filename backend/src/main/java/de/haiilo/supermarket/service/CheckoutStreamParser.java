@@ -0,0 +1,120 @@
+package de.haiilo.supermarket.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haiilo.supermarket.exception.InvalidCartException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import org.springframework.stereotype.Component;
+
+// Reads a checkout request token by token, handing each cart line over as soon as it is complete.
+// Only the item id, its expected price and the quantity are read, everything else (name, currentOffer, ...)
+// is skipped without being materialized, so memory doesn't grow with the cart.
+@Component
+public class CheckoutStreamParser {
+    private final JsonFactory jsonFactory;
+
+    public CheckoutStreamParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @FunctionalInterface
+    public interface LineHandler {
+        void line(long itemId, Integer expectedPrice, int quantity);
+    }
+
+    // Returns the total sent by the client, null if there was none
+    public Integer parse(InputStream body, LineHandler handler) {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT, "request");
+            Integer total = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("items".equals(field)) {
+                    parseItems(parser, value, handler);
+                } else if ("total".equals(field)) {
+                    total = readInt(parser, value, "total");
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            expect(parser.currentToken(), JsonToken.END_OBJECT, "request");
+            return total;
+        } catch (JsonProcessingException e) {
+            throw new InvalidCartException("Malformed checkout request: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void parseItems(JsonParser parser, JsonToken token, LineHandler handler) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(token, JsonToken.START_ARRAY, "items");
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            parseLine(parser, handler);
+        }
+    }
+
+    private void parseLine(JsonParser parser, LineHandler handler) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_OBJECT, "cart line");
+        Long itemId = null;
+        Integer expectedPrice = null;
+        Integer quantity = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("quantity".equals(field)) {
+                quantity = readInt(parser, value, "quantity");
+            } else if ("item".equals(field)) {
+                expect(value, JsonToken.START_OBJECT, "item");
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String itemField = parser.getCurrentName();
+                    JsonToken itemValue = parser.nextToken();
+                    if ("id".equals(itemField)) {
+                        itemId = readLong(parser, itemValue, "item id");
+                    } else if ("currentPriceValue".equals(itemField)) {
+                        expectedPrice = readInt(parser, itemValue, "currentPriceValue");
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (itemId == null || quantity == null) {
+            throw new InvalidCartException("Cart line without item id or quantity");
+        }
+        handler.line(itemId, expectedPrice, quantity);
+    }
+
+    private static Integer readInt(JsonParser parser, JsonToken token, String what) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(token, JsonToken.VALUE_NUMBER_INT, what);
+        return parser.getIntValue();
+    }
+
+    private static Long readLong(JsonParser parser, JsonToken token, String what) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(token, JsonToken.VALUE_NUMBER_INT, what);
+        return parser.getLongValue();
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected, String what) {
+        if (actual != expected) {
+            throw new InvalidCartException("Malformed checkout request: expected " + expected + " for " + what
+                + " but got " + actual);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.dto.ItemInvalidationDto;
+
+// Delivers invalidations to every node, including the sending one, which ignores its own
+public interface ItemInvalidationBus {
+    void publish(ItemInvalidationDto invalidation);
+}
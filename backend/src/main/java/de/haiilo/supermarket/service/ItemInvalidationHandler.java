@@ -0,0 +1,61 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.dto.ItemInvalidationDto;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+// Applies items changed by another node: their cached entities are evicted and their catalog entries reloaded.
+// Prices and offers are never updated, only added, so the item is the only cached entity that goes stale.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemInvalidationHandler {
+    private final CatalogService catalogService;
+    private final EntityManagerFactory entityManagerFactory;
+    private final SupermarketMetrics metrics;
+
+    public void apply(ItemInvalidationDto invalidation) {
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        Set<Long> staleItemIds = invalidation.items().stream()
+            .filter(item -> isStale(catalog, item))
+            .map(ItemInvalidationDto.ItemVersion::itemId)
+            .collect(Collectors.toUnmodifiableSet());
+        metrics.itemsInvalidated("ignored", invalidation.items().size() - staleItemIds.size());
+        if (staleItemIds.isEmpty()) {
+            return;
+        }
+
+        Cache cache = entityManagerFactory.getCache();
+        staleItemIds.forEach(itemId -> cache.evict(Item.class, itemId));
+        catalogService.reload(staleItemIds);
+        metrics.itemsInvalidated("applied", staleItemIds.size());
+        log.debug("Reloaded items {} changed by another node", staleItemIds);
+    }
+
+    // For when invalidations may have been missed
+    public void applyAll() {
+        entityManagerFactory.getCache().evict(Item.class);
+        catalogService.refresh();
+        log.info("Reloaded the catalog, invalidations from other nodes may have been missed");
+    }
+
+    // Own invalidations, and ones overtaken by a later change, find the version already loaded
+    private static boolean isStale(CatalogSnapshot catalog, ItemInvalidationDto.ItemVersion item) {
+        CatalogEntry entry = catalog.find(item.itemId());
+        if (entry == null) {
+            // Created on the other node, unless it was deleted right away
+            return item.version() != null;
+        }
+        if (item.version() == null) {
+            return true;
+        }
+        return entry.item().version() == null || entry.item().version() < item.version();
+    }
+}
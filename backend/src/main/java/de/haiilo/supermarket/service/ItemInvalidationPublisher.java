@@ -0,0 +1,46 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.dto.ItemInvalidationDto;
+import de.haiilo.supermarket.event.CatalogChangedEvent;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Tells the other nodes about items changed on this one, after commit, so they never reload ahead of it.
+// Items changed by other nodes are reloaded without a CatalogChangedEvent, so they are never sent back.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemInvalidationPublisher {
+    private final CatalogService catalogService;
+    private final SupermarketMetrics metrics;
+    // Absent without RabbitMQ, a single node has nobody to tell
+    private final Optional<ItemInvalidationBus> invalidationBus;
+
+    // Runs after CatalogService reloaded the items, so their versions are read from the snapshot
+    @TransactionalEventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (invalidationBus.isEmpty()) {
+            return;
+        }
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        ItemInvalidationDto invalidation = ItemInvalidationDto.builder()
+            .items(event.itemIds().stream()
+                .map(itemId -> {
+                    CatalogEntry entry = catalog.find(itemId);
+                    return new ItemInvalidationDto.ItemVersion(itemId, entry != null ? entry.item().version() : null);
+                })
+                .toList())
+            .build();
+        try {
+            invalidationBus.get().publish(invalidation);
+            metrics.itemsInvalidated("published", invalidation.items().size());
+        } catch (RuntimeException e) {
+            // The change is committed either way, other nodes serve the items stale until they change again
+            log.warn("Could not publish invalidation of items {}", event.itemIds(), e);
+        }
+    }
+}
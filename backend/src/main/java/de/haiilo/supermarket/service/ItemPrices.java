@@ -0,0 +1,11 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.util.CompiledPrice;
+
+// Where a checkout takes its prices from: the current catalog, or the price history at the time of a sale
+@FunctionalInterface
+public interface ItemPrices {
+
+    // Throws IllegalStateException when there is no price for the item
+    CompiledPrice priceOf(long itemId);
+}
@@ -1,24 +1,58 @@
 package de.haiilo.supermarket.service;
 
 import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.dto.ItemPage;
 import de.haiilo.supermarket.mapper.ItemMapper;
+import de.haiilo.supermarket.repository.ItemCatalogRow;
+import de.haiilo.supermarket.repository.ItemFilter;
 import de.haiilo.supermarket.repository.ItemRepository;
+import java.util.Collection;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class ItemService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final ItemRepository itemRepository;
     private final ItemMapper itemMapper;
 
+    // Sizes outside 1..MAX_PAGE_SIZE are clamped
     @Transactional(readOnly = true)
-    public List<ItemDto> getItems() {
-        // TODO Without Pageable just because it's an assessment task
-        return itemRepository.findAll().stream()
+    public ItemPage getItemPage(long afterId, int size, ItemFilter filter) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<ItemDto> items = itemRepository.findPage(afterId, limit, filter).stream()
             .map(itemMapper::toDto)
             .toList();
+        return ItemPage.builder()
+            .items(items)
+            .nextCursor(items.size() == limit ? items.get(items.size() - 1).id() : null)
+            .build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<CatalogEntry> getCatalogEntries() {
+        // The whole catalog is kept in memory anyway, projected rows keep the load to a single statement
+        // without hydrating entities. Clients that only need a part of it use getItemPage.
+        return itemRepository.findCatalogRows().stream()
+            .map(this::toCatalogEntry)
+            .toList();
+    }
+
+    // Called after commit of another transaction, so it must not join the finished one
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public List<CatalogEntry> getCatalogEntries(Collection<Long> itemIds) {
+        return itemRepository.findCatalogRowsById(itemIds).stream()
+            .map(this::toCatalogEntry)
+            .toList();
+    }
+
+    private CatalogEntry toCatalogEntry(ItemCatalogRow row) {
+        return new CatalogEntry(itemMapper.toDto(row), itemMapper.toCompiledPrice(row), 0);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package de.haiilo.supermarket.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One line of the order journal, everything needed to insert the order without looking anything up
+public record JournaledOrder(
+    long orderId,
+    LocalDateTime createdAt,
+    int total,
+    List<Line> lines
+) {
+    public record Line(
+        long itemId,
+        int quantity,
+        int priceSnapshot,
+        Long offerId,
+        Integer offerQuantity,
+        Integer offerDiscountPercentage
+    ) {}
+}
@@ -0,0 +1,232 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.config.OfferProperties;
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.domain.Offer;
+import de.haiilo.supermarket.domain.Price;
+import de.haiilo.supermarket.domain.PriceOutboxEntry;
+import de.haiilo.supermarket.dto.ScheduledOfferDto;
+import de.haiilo.supermarket.event.CatalogChangedEvent;
+import de.haiilo.supermarket.exception.InvalidOfferException;
+import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.repository.OfferRepository;
+import de.haiilo.supermarket.repository.PriceOutboxRepository;
+import de.haiilo.supermarket.repository.PriceRepository;
+import de.haiilo.supermarket.util.OfferCalculator;
+import de.haiilo.supermarket.util.TimerWheel;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Creates offers and keeps the current offer of every item in line with their schedule.
+// Starts and ends are put on a timer wheel when an offer is created, and on startup for offers still ahead,
+// so the offer table is never polled. When an item's offer changes, only that item is repriced and reloaded.
+@Slf4j
+@Service
+public class OfferService {
+    private final ItemRepository itemRepository;
+    private final OfferRepository offerRepository;
+    private final PriceRepository priceRepository;
+    private final PriceOutboxRepository priceOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    // Ids of items whose offer may change at the deadline, guarded by itself
+    private final TimerWheel<Long> transitions;
+
+    public OfferService(
+        ItemRepository itemRepository,
+        OfferRepository offerRepository,
+        PriceRepository priceRepository,
+        PriceOutboxRepository priceOutboxRepository,
+        ApplicationEventPublisher eventPublisher,
+        TransactionTemplate transactionTemplate,
+        OfferProperties properties
+    ) {
+        this.itemRepository = itemRepository;
+        this.offerRepository = offerRepository;
+        this.priceRepository = priceRepository;
+        this.priceOutboxRepository = priceOutboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.transitions = new TimerWheel<>(properties.getTickMs(), properties.getWheelSize(), System.currentTimeMillis());
+    }
+
+    // A start in the past, e.g. of a delayed message, starts the offer now.
+    // An offer starting now is in effect when this returns.
+    public ScheduledOfferDto scheduleOffer(ScheduledOfferDto offerDto) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startsAt = offerDto.startsAt() == null || offerDto.startsAt().isBefore(now)
+            ? now
+            : offerDto.startsAt();
+        validate(offerDto, startsAt);
+
+        Offer offer;
+        try {
+            offer = transactionTemplate.execute(status -> {
+                Item item = itemRepository.findById(offerDto.itemId())
+                    .orElseThrow(() -> new EntityNotFoundException("Item not found with ID: " + offerDto.itemId()));
+                var newOffer = new Offer();
+                newOffer.setItem(item);
+                newOffer.setQuantity(offerDto.quantity());
+                newOffer.setDiscountPercentage(offerDto.discountPercentage());
+                newOffer.setStartsAt(startsAt);
+                newOffer.setEndsAt(offerDto.endsAt());
+                return offerRepository.save(newOffer);
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new InvalidOfferException(
+                "Item " + offerDto.itemId() + " already has an offer starting at " + startsAt, e);
+        }
+
+        schedule(offer);
+        if (!startsAt.isAfter(now)) {
+            refreshOrRetry(Set.of(offerDto.itemId()));
+        }
+        return toDto(offer);
+    }
+
+    @Scheduled(fixedRateString = "${supermarket.offers.tick-ms:100}")
+    public synchronized void tick() {
+        List<Long> itemIds;
+        synchronized (transitions) {
+            itemIds = transitions.advance(System.currentTimeMillis());
+        }
+        if (!itemIds.isEmpty()) {
+            refreshOrRetry(new LinkedHashSet<>(itemIds));
+        }
+    }
+
+    // Offers that started or ended while the application was down are caught up with, the rest is scheduled
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleOnStartup() {
+        offerRepository.findWithTransitionsAfter(LocalDateTime.now()).forEach(this::schedule);
+        refreshOrRetry(offerRepository.findItemIdsWithOffers());
+    }
+
+    private void schedule(Offer offer) {
+        Long itemId = offer.getItem().getId();
+        synchronized (transitions) {
+            transitions.schedule(toMillis(offer.getStartsAt()), itemId);
+            if (offer.getEndsAt() != null) {
+                transitions.schedule(toMillis(offer.getEndsAt()), itemId);
+            }
+        }
+    }
+
+    private void refreshOrRetry(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> refresh(itemIds, LocalDateTime.now()));
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // Lost against a concurrent price write, the next tick tries again on the new state
+            log.debug("Retrying offer refresh of items {} with the next tick", itemIds, e);
+            long now = System.currentTimeMillis();
+            synchronized (transitions) {
+                itemIds.forEach(itemId -> transitions.schedule(now, itemId));
+            }
+        }
+    }
+
+    private void refresh(Collection<Long> itemIds, LocalDateTime now) {
+        Map<Long, List<Offer>> offersByItemId = offerRepository.findByItemIdIn(itemIds).stream()
+            .collect(Collectors.groupingBy(offer -> offer.getItem().getId()));
+
+        List<Item> changedItems = new ArrayList<>();
+        for (Item item : itemRepository.findAllWithCurrentPriceAndOfferById(itemIds)) {
+            Offer offer = offerInEffect(offersByItemId.getOrDefault(item.getId(), List.of()), now);
+            if (Objects.equals(offer, item.getCurrentOffer())) {
+                continue;
+            }
+            item.setCurrentOffer(offer);
+            reprice(item);
+            changedItems.add(item);
+        }
+        if (changedItems.isEmpty()) {
+            return;
+        }
+        itemRepository.saveAll(changedItems);
+        log.debug("Offers changed for items {}", changedItems.stream().map(Item::getId).toList());
+
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+            changedItems.stream().map(Item::getId).collect(Collectors.toUnmodifiableSet())));
+    }
+
+    // The latest started offer, unless it has ended. An earlier offer doesn't come back when a later one ends.
+    static Offer offerInEffect(List<Offer> offers, LocalDateTime now) {
+        Offer latest = offers.stream()
+            .filter(offer -> !offer.getStartsAt().isAfter(now))
+            .max(Comparator.comparing(Offer::getStartsAt))
+            .orElse(null);
+        if (latest == null || latest.getEndsAt() != null && !now.isBefore(latest.getEndsAt())) {
+            return null;
+        }
+        return latest;
+    }
+
+    // Writes a new price row with the same value rather than updating the current one,
+    // so the offer price stored with earlier rows stays what it was at their time
+    private void reprice(Item item) {
+        Price currentPrice = item.getCurrentPrice();
+        if (currentPrice == null) {
+            return;
+        }
+        var newPrice = new Price();
+        newPrice.setItem(item);
+        newPrice.setValue(currentPrice.getValue());
+        item.setCurrentPrice(newPrice);
+        newPrice.setCalculatedOfferPrice(OfferCalculator.calculateOfferPrice(item));
+        priceRepository.save(newPrice);
+        priceOutboxRepository.save(PriceOutboxEntry.of(item, newPrice));
+    }
+
+    private static void validate(ScheduledOfferDto offerDto, LocalDateTime startsAt) {
+        if (offerDto.itemId() == null) {
+            throw new InvalidOfferException("Offer has no item");
+        }
+        if (offerDto.quantity() == null || offerDto.quantity() < 2) {
+            throw new InvalidOfferException("Offer quantity must be at least 2");
+        }
+        if (offerDto.discountPercentage() == null
+            || offerDto.discountPercentage() < 1 || offerDto.discountPercentage() > 99) {
+            throw new InvalidOfferException("Offer discount must be between 1 and 99 percent");
+        }
+        if (offerDto.endsAt() != null && !offerDto.endsAt().isAfter(startsAt)) {
+            throw new InvalidOfferException("Offer must end after it starts");
+        }
+    }
+
+    private static ScheduledOfferDto toDto(Offer offer) {
+        return ScheduledOfferDto.builder()
+            .id(offer.getId())
+            .itemId(offer.getItem().getId())
+            .quantity(offer.getQuantity())
+            .discountPercentage(offer.getDiscountPercentage())
+            .startsAt(offer.getStartsAt())
+            .endsAt(offer.getEndsAt())
+            .build();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
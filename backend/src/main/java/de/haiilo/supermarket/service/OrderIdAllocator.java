@@ -0,0 +1,53 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.domain.Order;
+import de.haiilo.supermarket.domain.OrderItem;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.support.incrementer.H2SequenceMaxValueIncrementer;
+import org.springframework.stereotype.Component;
+
+// Reserves order and order item ids from the same sequences and with the same pooled-lo semantics
+// Hibernate uses for Order and OrderItem, so orders written behind never collide with ones saved through JPA
+@Component
+@ConditionalOnProperty(prefix = "supermarket.checkout.write-behind", name = "enabled", havingValue = "true")
+public class OrderIdAllocator {
+    private final PooledSequence orderIds;
+    private final PooledSequence orderItemIds;
+
+    public OrderIdAllocator(DataSource dataSource) {
+        this.orderIds = new PooledSequence(
+            new H2SequenceMaxValueIncrementer(dataSource, Order.ID_SEQUENCE), Order.ID_ALLOCATION_SIZE);
+        this.orderItemIds = new PooledSequence(
+            new H2SequenceMaxValueIncrementer(dataSource, OrderItem.ID_SEQUENCE), OrderItem.ID_ALLOCATION_SIZE);
+    }
+
+    public long nextOrderId() {
+        return orderIds.next();
+    }
+
+    public long nextOrderItemId() {
+        return orderItemIds.next();
+    }
+
+    private static class PooledSequence {
+        private final H2SequenceMaxValueIncrementer sequence;
+        private final int allocationSize;
+
+        private long next;
+        private long limit;
+
+        PooledSequence(H2SequenceMaxValueIncrementer sequence, int allocationSize) {
+            this.sequence = sequence;
+            this.allocationSize = allocationSize;
+        }
+
+        synchronized long next() {
+            if (next == limit) {
+                next = sequence.nextLongValue();
+                limit = next + allocationSize;
+            }
+            return next++;
+        }
+    }
+}
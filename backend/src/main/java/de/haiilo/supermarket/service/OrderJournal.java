@@ -0,0 +1,302 @@
+package de.haiilo.supermarket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haiilo.supermarket.config.CheckoutProperties;
+import de.haiilo.supermarket.exception.JournalUnavailableException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Append-only file of journaled orders, one JSON line per order.
+// Appends are group-committed: a single writer thread writes whatever is pending and fsyncs once for all of it.
+// The drained offset is kept in a checkpoint file, so everything after it is replayed after a restart.
+// An append waits at most appendTimeoutMs for its fsync, and none is left waiting once the journal closes.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "supermarket.checkout.write-behind", name = "enabled", havingValue = "true")
+public class OrderJournal {
+    private static final String JOURNAL_FILE = "orders.journal";
+    private static final String CHECKPOINT_FILE = "orders.checkpoint";
+    private static final int MAX_READ_BYTES = 16 * 1024 * 1024;
+    private static final byte NEW_LINE = '\n';
+
+    private final ObjectMapper objectMapper;
+    private final long compactThresholdBytes;
+    private final long appendTimeoutMs;
+    private final Path checkpointPath;
+    private final FileChannel channel;
+    private final BlockingQueue<PendingAppend> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    // Appends are queued and stopped under this lock, so none is queued after the writer's last look at the queue
+    private final Object appendLock = new Object();
+
+    private volatile boolean running = true;
+    // Set when a failed group commit couldn't be rolled back, nothing is appended after unknown bytes
+    private volatile IOException broken;
+    // Everything before durableSize is fsynced, everything before drainedOffset is in the database
+    private volatile long durableSize;
+    private volatile long drainedOffset;
+
+    public OrderJournal(ObjectMapper objectMapper, CheckoutProperties properties) throws IOException {
+        this.objectMapper = objectMapper;
+        this.compactThresholdBytes = properties.getWriteBehind().getCompactThresholdBytes();
+        this.appendTimeoutMs = properties.getWriteBehind().getAppendTimeoutMs();
+
+        Path directory = Path.of(properties.getWriteBehind().getJournalDir());
+        Files.createDirectories(directory);
+        this.checkpointPath = directory.resolve(CHECKPOINT_FILE);
+        this.channel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        this.durableSize = truncateTornTail();
+        this.drainedOffset = Math.min(readCheckpoint(), durableSize);
+        channel.position(durableSize);
+
+        this.writer = new Thread(this::writeLoop, "order-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Blocks until the order is fsynced, or fails with JournalUnavailableException once the journal closes
+    // or the fsync takes longer than appendTimeoutMs
+    public void append(JournaledOrder order) {
+        byte[] line;
+        try {
+            line = objectMapper.writeValueAsBytes(order);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize order " + order.orderId(), e);
+        }
+        PendingAppend append = new PendingAppend(Arrays.copyOf(line, line.length + 1), new CompletableFuture<>());
+        append.bytes()[line.length] = NEW_LINE;
+        synchronized (appendLock) {
+            if (!running) {
+                throw new JournalUnavailableException("Order journal is closed");
+            }
+            pending.add(append);
+        }
+        try {
+            try {
+                append.written().get(appendTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // The writer skips an append that timed out, unless its group was already being written
+                append.written().completeExceptionally(new JournalUnavailableException(
+                    "Order " + order.orderId() + " was not journaled within " + appendTimeoutMs + " ms", e));
+                append.written().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while journaling order " + order.orderId(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JournalUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new IllegalStateException("Failed to journal order " + order.orderId(), e.getCause());
+        }
+    }
+
+    // Reads up to maxOrders journaled orders after the drained offset
+    public Batch read(int maxOrders) {
+        long from = drainedOffset;
+        long to = durableSize;
+        if (from >= to) {
+            return new Batch(List.of(), from);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(to - from, MAX_READ_BYTES));
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, from + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read order journal", e);
+        }
+
+        byte[] bytes = buffer.array();
+        List<JournaledOrder> orders = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < buffer.position() && orders.size() < maxOrders; i++) {
+            if (bytes[i] == NEW_LINE) {
+                orders.add(parse(bytes, lineStart, i - lineStart));
+                lineStart = i + 1;
+            }
+        }
+        return new Batch(orders, from + lineStart);
+    }
+
+    public synchronized void markDrained(long offset) {
+        writeCheckpoint(offset);
+        drainedOffset = offset;
+    }
+
+    // The writer still commits what was queued before, anything it doesn't get to in time fails
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        stopAppends();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        failPending();
+        channel.close();
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> group = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingAppend first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    compactIfDrained();
+                    continue;
+                }
+                group.add(first);
+                pending.drainTo(group);
+                group.removeIf(append -> append.written().isDone());
+                if (broken != null) {
+                    throw broken;
+                }
+                for (PendingAppend append : group) {
+                    ByteBuffer buffer = ByteBuffer.wrap(append.bytes());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                channel.force(false);
+                durableSize = channel.position();
+                group.forEach(append -> append.written().complete(null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopAppends();
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write {} orders to the journal", group.size(), e);
+                group.forEach(append -> append.written().completeExceptionally(e));
+                discardUnforcedWrites();
+            }
+            group.clear();
+        }
+    }
+
+    private void stopAppends() {
+        synchronized (appendLock) {
+            running = false;
+        }
+    }
+
+    private void failPending() {
+        List<PendingAppend> unwritten = new ArrayList<>();
+        pending.drainTo(unwritten);
+        unwritten.forEach(append -> append.written().completeExceptionally(
+            new JournalUnavailableException("Order journal closed before the order was journaled")));
+    }
+
+    // A group that failed half way may have left bytes after durableSize, the next group would append after them.
+    // If they can't be cut off, the journal is failed closed instead.
+    private void discardUnforcedWrites() {
+        if (broken != null) {
+            return;
+        }
+        try {
+            channel.truncate(durableSize);
+            channel.position(durableSize);
+        } catch (IOException e) {
+            log.error("Failed to roll back the order journal to {} bytes, closing it", durableSize, e);
+            broken = e;
+            stopAppends();
+        }
+    }
+
+    // Runs on the writer thread only, so no append can interleave with the truncation
+    private synchronized void compactIfDrained() {
+        if (durableSize < compactThresholdBytes || drainedOffset != durableSize) {
+            return;
+        }
+        try {
+            channel.truncate(0);
+            channel.force(true);
+            writeCheckpoint(0);
+            durableSize = 0;
+            drainedOffset = 0;
+        } catch (IOException e) {
+            log.error("Failed to compact the order journal", e);
+        }
+    }
+
+    // A crash in the middle of a group commit can leave a partial last line, it was never acknowledged
+    private long truncateTornTail() throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long end = size;
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            channel.read(buffer, start);
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == NEW_LINE) {
+                    long validSize = start + i + 1;
+                    if (validSize < size) {
+                        log.warn("Truncating {} bytes of a torn order journal entry", size - validSize);
+                        channel.truncate(validSize);
+                    }
+                    return validSize;
+                }
+            }
+            end = start;
+        }
+        channel.truncate(0);
+        return 0;
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpointPath, StandardCharsets.UTF_8).trim());
+    }
+
+    private void writeCheckpoint(long offset) {
+        try {
+            Path temp = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(temp, Long.toString(offset), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+            Files.move(temp, checkpointPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write order journal checkpoint", e);
+        }
+    }
+
+    private JournaledOrder parse(byte[] bytes, int offset, int length) {
+        try {
+            return objectMapper.readValue(bytes, offset, length, JournaledOrder.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt order journal entry", e);
+        }
+    }
+
+    public record Batch(
+        List<JournaledOrder> orders,
+        long endOffset
+    ) {}
+
+    private record PendingAppend(
+        byte[] bytes,
+        CompletableFuture<Void> written
+    ) {}
+}
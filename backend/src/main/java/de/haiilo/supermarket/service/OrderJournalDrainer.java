@@ -0,0 +1,117 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.config.CheckoutProperties;
+import de.haiilo.supermarket.domain.OrderStatus;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Moves journaled orders into kata_order/order_item with JDBC batches, oldest first.
+// Orders that already exist were inserted before a crash prevented the checkpoint and are skipped,
+// which makes replaying the journal after a restart safe.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "supermarket.checkout.write-behind", name = "enabled", havingValue = "true")
+public class OrderJournalDrainer {
+    private static final String INSERT_ORDER = """
+        insert into kata_order (id, status, created_at, completed_at, total)
+        values (:id, :status, :createdAt, :completedAt, :total)""";
+    private static final String INSERT_ORDER_ITEM = """
+        insert into order_item (id, order_id, item_id, quantity, price_snapshot,
+            offer_snapshot_id, offer_snapshot_quantity, offer_snapshot_discount_percentage)
+        values (:id, :orderId, :itemId, :quantity, :priceSnapshot,
+            :offerId, :offerQuantity, :offerDiscountPercentage)""";
+
+    private final OrderJournal orderJournal;
+    private final OrderIdAllocator orderIdAllocator;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CheckoutProperties properties;
+
+    // Synchronized, the shutdown drain must not read the same batch as a scheduled run still in progress
+    @Scheduled(fixedDelayString = "${supermarket.checkout.write-behind.drain-interval-ms:200}")
+    public synchronized void drain() {
+        int batchSize = properties.getWriteBehind().getDrainBatchSize();
+        OrderJournal.Batch batch;
+        do {
+            batch = orderJournal.read(batchSize);
+            if (batch.orders().isEmpty()) {
+                return;
+            }
+            List<JournaledOrder> orders = batch.orders();
+            transactionTemplate.executeWithoutResult(status -> insert(orders));
+            orderJournal.markDrained(batch.endOffset());
+        } while (batch.orders().size() == batchSize);
+    }
+
+    @PreDestroy
+    public void drainOnShutdown() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("Orders left in the journal will be written on the next start", e);
+        }
+    }
+
+    private void insert(List<JournaledOrder> journaledOrders) {
+        Set<Long> existingIds = findExistingOrderIds(journaledOrders);
+
+        List<Map<String, Object>> orders = new ArrayList<>(journaledOrders.size());
+        List<Map<String, Object>> orderItems = new ArrayList<>();
+        for (JournaledOrder order : journaledOrders) {
+            if (existingIds.contains(order.orderId())) {
+                continue;
+            }
+            Timestamp createdAt = Timestamp.valueOf(order.createdAt());
+            orders.add(Map.of(
+                "id", order.orderId(),
+                "status", OrderStatus.COMPLETED.name(),
+                "createdAt", createdAt,
+                "completedAt", createdAt,
+                "total", order.total()
+            ));
+            for (JournaledOrder.Line line : order.lines()) {
+                Map<String, Object> orderItem = new HashMap<>();
+                orderItem.put("id", orderIdAllocator.nextOrderItemId());
+                orderItem.put("orderId", order.orderId());
+                orderItem.put("itemId", line.itemId());
+                orderItem.put("quantity", line.quantity());
+                orderItem.put("priceSnapshot", line.priceSnapshot());
+                orderItem.put("offerId", line.offerId());
+                orderItem.put("offerQuantity", line.offerQuantity());
+                orderItem.put("offerDiscountPercentage", line.offerDiscountPercentage());
+                orderItems.add(orderItem);
+            }
+        }
+
+        if (!orders.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ORDER, toArray(orders));
+            jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, toArray(orderItems));
+        }
+        log.debug("Drained {} journaled orders, {} were already written", journaledOrders.size(), existingIds.size());
+    }
+
+    private Set<Long> findExistingOrderIds(List<JournaledOrder> orders) {
+        List<Long> ids = orders.stream().map(JournaledOrder::orderId).toList();
+        return new HashSet<>(jdbcTemplate.queryForList(
+            "select id from kata_order where id in (:ids)", Map.of("ids", ids), Long.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object>[] toArray(List<Map<String, Object>> rows) {
+        return rows.toArray(new Map[0]);
+    }
+}
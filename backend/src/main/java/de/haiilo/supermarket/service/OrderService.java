@@ -1,113 +1,383 @@
 package de.haiilo.supermarket.service;
 
+import de.haiilo.supermarket.config.CheckoutProperties;
 import de.haiilo.supermarket.domain.EmbeddableOfferSnapshot;
-import de.haiilo.supermarket.domain.Item;
 import de.haiilo.supermarket.domain.Order;
 import de.haiilo.supermarket.domain.OrderItem;
 import de.haiilo.supermarket.domain.OrderStatus;
+import de.haiilo.supermarket.dto.BatchCheckoutRequest;
+import de.haiilo.supermarket.dto.BatchCheckoutResponse;
 import de.haiilo.supermarket.dto.CheckoutRequest;
 import de.haiilo.supermarket.dto.CheckoutResponse;
+import de.haiilo.supermarket.dto.CompactCheckoutRequest;
+import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.dto.QuoteResponse;
+import de.haiilo.supermarket.exception.CartLimitExceededException;
+import de.haiilo.supermarket.exception.InvalidCartException;
 import de.haiilo.supermarket.exception.PriceChangedException;
 import de.haiilo.supermarket.exception.TotalMismatchException;
 import de.haiilo.supermarket.repository.ItemRepository;
 import de.haiilo.supermarket.repository.OrderRepository;
-import de.haiilo.supermarket.util.OfferCalculator;
+import de.haiilo.supermarket.util.CartLines;
+import de.haiilo.supermarket.util.CompiledPrice;
+import de.haiilo.supermarket.util.ItemQuantityMap;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
     private final ItemRepository itemRepository;
     private final OrderRepository orderRepository;
+    private final CatalogService catalogService;
+    private final PriceHistoryService priceHistoryService;
+    private final PricingRules pricingRules;
+    private final CheckoutStreamParser checkoutStreamParser;
+    private final CheckoutProperties checkoutProperties;
+    private final TransactionTemplate transactionTemplate;
+    // Present in write-behind mode only
+    private final Optional<OrderJournal> orderJournal;
+    private final Optional<OrderIdAllocator> orderIdAllocator;
 
+    // Prices come from one catalog snapshot, items are never loaded - the order only references them
     @Transactional
     public CheckoutResponse processCheckout(CheckoutRequest request) {
-        Map<Long, Item> itemsById = fetchItemsById(request);
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        if (catalog.isVersion(request.catalogVersion())) {
+            // Priced with this node's current catalog, nothing can have changed - the total is still recalculated.
+            // A version of another node or an earlier run never matches, those carts are validated line by line.
+            return checkout(request.items(), request.total(), catalog, null, LocalDateTime.now());
+        }
+        return checkout(request.items(), request.total(), catalog, catalog, LocalDateTime.now());
+    }
+
+    // All carts are priced against the same snapshot, or the price history at their sale time,
+    // and persisted in one transaction, so the inserts are batched.
+    // A cart failing validation only fails its own result, the others are still ordered.
+    @Transactional
+    public BatchCheckoutResponse processBatchCheckout(BatchCheckoutRequest request) {
+        int maxCarts = checkoutProperties.getBatch().getMaxCarts();
+        if (request.carts().size() > maxCarts) {
+            throw new CartLimitExceededException("Number of carts", maxCarts);
+        }
+        CatalogSnapshot catalog = catalogService.getSnapshot();
 
-        validatePrices(request, itemsById);
+        List<CheckoutResponse> results = new ArrayList<>(request.carts().size());
+        int failed = 0;
+        for (BatchCheckoutRequest.Sale sale : request.carts()) {
+            CheckoutResponse result;
+            try {
+                result = sale.soldAt() != null
+                    ? checkout(sale.items(), sale.total(), catalog, priceHistoryService.at(sale.soldAt()), sale.soldAt())
+                    : checkout(sale.items(), sale.total(), catalog, catalog, LocalDateTime.now());
+            } catch (PriceChangedException e) {
+                result = CheckoutResponse.builder()
+                    .errorMessage(e.getMessage())
+                    .itemIdWithPriceChange(e.getItemId())
+                    .actualPrice(e.getActualPrice())
+                    .build();
+            } catch (TotalMismatchException | IllegalStateException e) {
+                // IllegalStateException - an item without a price
+                result = CheckoutResponse.builder()
+                    .errorMessage(e.getMessage())
+                    .build();
+            }
+            if (result.orderId() == null) {
+                failed++;
+            }
+            results.add(result);
+        }
+
+        return BatchCheckoutResponse.builder()
+            .results(results)
+            .completed(results.size() - failed)
+            .failed(failed)
+            .catalogVersion(catalog.version())
+            .build();
+    }
 
-        int total = calculateTotal(request.items(), itemsById);
-        validateTotal(request, total);
+    // Without prices to validate against, the catalog prices are used and lines aren't validated
+    private CheckoutResponse checkout(
+        List<CheckoutRequest.CartItem> items,
+        Integer expectedTotal,
+        CatalogSnapshot catalog,
+        ItemPrices validateWith,
+        LocalDateTime completedAt
+    ) {
+        ItemPrices prices = catalog;
+        if (validateWith != null) {
+            validatePrices(items, catalog, validateWith);
+            prices = validateWith;
+        }
 
-        Order order = createOrder(request, itemsById, total);
-        orderRepository.save(order);
+        CartLines lines = cartLines(items);
+        int total = calculateTotal(lines, prices);
+        validateTotal(expectedTotal, total);
 
         return CheckoutResponse.builder()
+            .orderId(persist(lines, prices, total, completedAt))
             .total(total)
             .build();
     }
 
-    private Map<Long, Item> fetchItemsById(CheckoutRequest request) {
-        Set<Long> itemIds = request.items().stream()
-            .map(cartItem -> cartItem.item().id())
-            .collect(Collectors.toSet());
-        return itemRepository.findAllById(itemIds).stream()
-            .collect(Collectors.toMap(Item::getId, Function.identity()));
+    @Transactional
+    public CheckoutResponse processCheckout(CompactCheckoutRequest request) {
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        validateLines(request, catalog);
+
+        for (CompactCheckoutRequest.Line line : request.lines()) {
+            validatePrice(catalog, catalog, line.itemId(), line.expectedPrice());
+        }
+
+        CartLines lines = cartLines(request);
+        int total = calculateTotal(lines, catalog);
+        validateTotal(request.total(), total);
+
+        return CheckoutResponse.builder()
+            .orderId(persist(lines, catalog, total, LocalDateTime.now()))
+            .total(total)
+            .build();
     }
 
-    // Verify FE prices match current prices in the db
-    private void validatePrices(CheckoutRequest request, Map<Long, Item> itemsById) {
-        for (CheckoutRequest.CartItem cartItem : request.items()) {
+    // Checkout for very large carts: lines are validated and summed per item while the body is parsed,
+    // so the request is never bound as a whole. Only the persisting runs in a transaction.
+    public CheckoutResponse processStreamingCheckout(InputStream body) {
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        CheckoutProperties.Streaming limits = checkoutProperties.getStreaming();
+
+        ItemQuantityMap lines = new ItemQuantityMap();
+        int[] lineCount = {0};
+        Integer expectedTotal = checkoutStreamParser.parse(body, (itemId, expectedPrice, quantity) -> {
+            if (++lineCount[0] > limits.getMaxCartLines()) {
+                throw new CartLimitExceededException("Number of cart lines", limits.getMaxCartLines());
+            }
+            if (quantity < 1) {
+                throw new InvalidCartException("Quantity must be positive for item: " + itemId);
+            }
+            if (catalog.find(itemId) == null) {
+                throw new InvalidCartException("Item not found in catalog: " + itemId);
+            }
+            validatePrice(catalog, catalog, itemId, expectedPrice);
+            if (lines.add(itemId, quantity) > limits.getMaxItemQuantity()) {
+                throw new CartLimitExceededException("Quantity of item " + itemId, limits.getMaxItemQuantity());
+            }
+        });
+
+        int total = calculateTotal(lines, catalog);
+        validateTotal(expectedTotal, total);
+
+        Long orderId = transactionTemplate.execute(status -> persist(lines, catalog, total, LocalDateTime.now()));
+        return CheckoutResponse.builder()
+            .orderId(orderId)
+            .total(total)
+            .build();
+    }
+
+    // Prices a cart without validating or persisting anything, no transaction involved
+    public QuoteResponse quote(CheckoutRequest request) {
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        validateLines(request.items(), catalog);
+        PricingRules.Pricing pricing = pricingRules.price(cartLines(request.items()), catalog);
+
+        List<QuoteResponse.QuoteLine> lines = new ArrayList<>(request.items().size());
+        for (int line = 0; line < request.items().size(); line++) {
+            CheckoutRequest.CartItem cartItem = request.items().get(line);
             Long itemId = cartItem.item().id();
-            Item item = itemsById.get(itemId);
-            int currentPrice = item.getCurrentPrice().getValue();
-            Integer expectedPrice = cartItem.item().currentPriceValue();
+            lines.add(new QuoteResponse.QuoteLine(
+                itemId, cartItem.quantity(), catalog.priceOf(itemId).price(), pricing.lineTotals()[line]));
+        }
 
-            if (expectedPrice != null && !expectedPrice.equals(currentPrice)) {
-                throw new PriceChangedException(item.getId(), item.getName(), currentPrice);
+        return QuoteResponse.builder()
+            .lines(lines)
+            .discount(pricing.discount())
+            .total(pricing.total())
+            .catalogVersion(catalog.version())
+            .build();
+    }
+
+    private Long persist(CartLines lines, ItemPrices prices, int total, LocalDateTime completedAt) {
+        if (orderJournal.isPresent()) {
+            JournaledOrder journaledOrder = createJournaledOrder(lines, prices, total, completedAt);
+            orderJournal.get().append(journaledOrder);
+            return journaledOrder.orderId();
+        }
+        return orderRepository.save(createOrder(lines, prices, total, completedAt)).getId();
+    }
+
+    // A quote has no prices to validate, but still only prices items the catalog knows
+    private static void validateLines(List<CheckoutRequest.CartItem> items, CatalogSnapshot catalog) {
+        if (items == null) {
+            throw new InvalidCartException("Cart without items");
+        }
+        for (CheckoutRequest.CartItem cartItem : items) {
+            if (cartItem == null || cartItem.item() == null || cartItem.item().id() == null) {
+                throw new InvalidCartException("Cart line without an item");
+            }
+            long itemId = cartItem.item().id();
+            if (cartItem.quantity() == null || cartItem.quantity() < 1) {
+                throw new InvalidCartException("Quantity must be positive for item: " + itemId);
+            }
+            if (catalog.find(itemId) == null) {
+                throw new InvalidCartException("Item not found in catalog: " + itemId);
+            }
+        }
+    }
+
+    // CBOR lines are positional arrays, a missing value arrives as null instead of failing the binding
+    private static void validateLines(CompactCheckoutRequest request, CatalogSnapshot catalog) {
+        if (request.lines() == null) {
+            throw new InvalidCartException("Cart without lines");
+        }
+        for (CompactCheckoutRequest.Line line : request.lines()) {
+            if (line == null || line.itemId() == null) {
+                throw new InvalidCartException("Cart line without an item");
+            }
+            if (line.quantity() == null || line.quantity() < 1) {
+                throw new InvalidCartException("Quantity must be positive for item: " + line.itemId());
             }
+            if (catalog.find(line.itemId()) == null) {
+                throw new InvalidCartException("Item not found in catalog: " + line.itemId());
+            }
+        }
+    }
+
+    // Verify FE prices match the prices the cart is checked out with.
+    // Against the catalog, an item version sent by the FE is compared instead of the price.
+    private void validatePrices(List<CheckoutRequest.CartItem> items, CatalogSnapshot catalog, ItemPrices prices) {
+        for (CheckoutRequest.CartItem cartItem : items) {
+            ItemDto item = cartItem.item();
+            if (prices == catalog && item.version() != null) {
+                validateVersion(catalog, item.id(), item.version());
+            } else {
+                validatePrice(catalog, prices, item.id(), item.currentPriceValue());
+            }
+        }
+    }
+
+    private void validateVersion(CatalogSnapshot catalog, long itemId, long expectedVersion) {
+        CatalogEntry entry = catalog.find(itemId);
+        if (entry == null) {
+            throw new IllegalStateException("Item not found in catalog: " + itemId);
+        }
+        if (entry.item().version() == null || entry.item().version() != expectedVersion) {
+            throw new PriceChangedException(itemId, entry.item().name(), entry.price().price());
         }
     }
 
-    private void validateTotal(CheckoutRequest request, int calculatedTotal) {
-        if (request.total() != null && !request.total().equals(calculatedTotal)) {
-            throw new TotalMismatchException(request.total(), calculatedTotal);
+    // The catalog is only needed for the item name
+    private void validatePrice(CatalogSnapshot catalog, ItemPrices prices, long itemId, Integer expectedPrice) {
+        int currentPrice = prices.priceOf(itemId).price();
+        if (expectedPrice != null && expectedPrice != currentPrice) {
+            CatalogEntry entry = catalog.find(itemId);
+            String itemName = entry != null ? entry.item().name() : String.valueOf(itemId);
+            throw new PriceChangedException(itemId, itemName, currentPrice);
         }
     }
 
-    private Order createOrder(CheckoutRequest request, Map<Long, Item> itemsById, int total) {
+    private void validateTotal(Integer expectedTotal, int calculatedTotal) {
+        if (expectedTotal != null && !expectedTotal.equals(calculatedTotal)) {
+            throw new TotalMismatchException(expectedTotal, calculatedTotal);
+        }
+    }
+
+    private Order createOrder(CartLines lines, ItemPrices prices, int total, LocalDateTime completedAt) {
         Order order = new Order();
         order.setStatus(OrderStatus.COMPLETED);
-        order.setCompletedAt(LocalDateTime.now());
+        order.setCompletedAt(completedAt);
         order.setTotal(total);
-        for (CheckoutRequest.CartItem cartItem : request.items()) {
-            Item item = itemsById.get(cartItem.item().id());
-            OrderItem orderItem = createOrderItem(order, item, cartItem.quantity());
+        for (int line = 0; line < lines.size(); line++) {
+            long itemId = lines.itemIdAt(line);
+            OrderItem orderItem = createOrderItem(order, itemId, prices.priceOf(itemId), lines.quantityAt(line));
             order.getItems().add(orderItem);
         }
         return order;
     }
 
-    private OrderItem createOrderItem(Order order, Item item, int quantity) {
+    private OrderItem createOrderItem(Order order, Long itemId, CompiledPrice price, int quantity) {
         OrderItem orderItem = new OrderItem();
         orderItem.setOrder(order);
-        orderItem.setItem(item);
+        orderItem.setItem(itemRepository.getReferenceById(itemId));
         orderItem.setQuantity(quantity);
-        orderItem.setPriceSnapshot(item.getCurrentPrice().getValue());
-        if (item.getCurrentOffer() != null) {
+        orderItem.setPriceSnapshot(price.price());
+        if (price.hasOffer()) {
             orderItem.setOfferSnapshot(EmbeddableOfferSnapshot.builder()
-                .id(item.getCurrentOffer().getId())
-                .quantity(item.getCurrentOffer().getQuantity())
-                .discountPercentage(item.getCurrentOffer().getDiscountPercentage())
+                .id(price.offerId())
+                .quantity(price.offerQuantity())
+                .discountPercentage(price.offerDiscountPercentage())
                 .build());
         }
         return orderItem;
     }
 
-    private int calculateTotal(List<CheckoutRequest.CartItem> items, Map<Long, Item> itemsById) {
-        return items.stream().mapToInt(cartItem -> {
-            Item item = itemsById.get(cartItem.item().id());
-            int quantity = cartItem.quantity();
+    private JournaledOrder createJournaledOrder(
+        CartLines cartLines,
+        ItemPrices prices,
+        int total,
+        LocalDateTime completedAt
+    ) {
+        List<JournaledOrder.Line> lines = new ArrayList<>(cartLines.size());
+        for (int line = 0; line < cartLines.size(); line++) {
+            long itemId = cartLines.itemIdAt(line);
+            CompiledPrice price = prices.priceOf(itemId);
+            lines.add(new JournaledOrder.Line(
+                itemId,
+                cartLines.quantityAt(line),
+                price.price(),
+                price.hasOffer() ? price.offerId() : null,
+                price.hasOffer() ? price.offerQuantity() : null,
+                price.hasOffer() ? price.offerDiscountPercentage() : null
+            ));
+        }
+        return new JournaledOrder(orderIdAllocator.orElseThrow().nextOrderId(), completedAt, total, lines);
+    }
+
+    private int calculateTotal(CartLines lines, ItemPrices prices) {
+        return pricingRules.total(lines, prices);
+    }
 
-            return OfferCalculator.calculateTotalPrice(item, quantity);
-        }).sum();
+    private static CartLines cartLines(List<CheckoutRequest.CartItem> items) {
+        return new CartLines() {
+            @Override
+            public int size() {
+                return items.size();
+            }
+
+            @Override
+            public long itemIdAt(int line) {
+                return items.get(line).item().id();
+            }
+
+            @Override
+            public int quantityAt(int line) {
+                return items.get(line).quantity();
+            }
+        };
+    }
+
+    private static CartLines cartLines(CompactCheckoutRequest request) {
+        List<CompactCheckoutRequest.Line> lines = request.lines();
+        return new CartLines() {
+            @Override
+            public int size() {
+                return lines.size();
+            }
+
+            @Override
+            public long itemIdAt(int line) {
+                return lines.get(line).itemId();
+            }
+
+            @Override
+            public int quantityAt(int line) {
+                return lines.get(line).quantity();
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.dto.PriceChangedDto;
+import java.util.List;
+
+// Returns once the broker has confirmed every change, in the given order, and throws otherwise
+public interface PriceChangePublisher {
+    void publish(List<PriceChangedDto> changes);
+}
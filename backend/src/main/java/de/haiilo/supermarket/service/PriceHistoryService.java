@@ -0,0 +1,135 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.dto.HistoricalPriceDto;
+import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.dto.OfferDto;
+import de.haiilo.supermarket.event.CatalogUpdatedEvent;
+import de.haiilo.supermarket.repository.OfferHistoryRow;
+import de.haiilo.supermarket.repository.OfferRepository;
+import de.haiilo.supermarket.repository.PriceHistoryRow;
+import de.haiilo.supermarket.repository.PriceRepository;
+import de.haiilo.supermarket.util.CompiledPrice;
+import de.haiilo.supermarket.util.PriceTimeline;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+// In-memory index of the price and offer tables answering "price of item X at time T" without a query.
+// Follows the catalog: rebuilt on every full reload, changed items get their new rows appended.
+@Service
+@RequiredArgsConstructor
+public class PriceHistoryService {
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final PriceRepository priceRepository;
+    private final OfferRepository offerRepository;
+
+    private volatile Map<Long, PriceTimeline> timelines = new ConcurrentHashMap<>();
+
+    // Null when the item is unknown or had no price yet at that time
+    public CompiledPrice priceAt(long itemId, LocalDateTime time) {
+        PriceTimeline timeline = timelines.get(itemId);
+        return timeline != null ? timeline.priceAt(toMicros(time)) : null;
+    }
+
+    public ItemPrices at(LocalDateTime time) {
+        return itemId -> {
+            CompiledPrice price = priceAt(itemId, time);
+            if (price == null) {
+                throw new IllegalStateException("No price for item " + itemId + " at " + time);
+            }
+            return price;
+        };
+    }
+
+    public Optional<HistoricalPriceDto> getPriceAt(long itemId, LocalDateTime time) {
+        PriceTimeline timeline = timelines.get(itemId);
+        CompiledPrice price = timeline != null ? timeline.priceAt(toMicros(time)) : null;
+        if (price == null) {
+            return Optional.empty();
+        }
+        return Optional.of(HistoricalPriceDto.builder()
+            .itemId(itemId)
+            .at(time)
+            .validFrom(fromMicros(timeline.priceValidFrom(toMicros(time))))
+            .price(price.price())
+            .offer(price.hasOffer() ? new OfferDto(price.offerQuantity(), price.offerPrice()) : null)
+            .build());
+    }
+
+    @EventListener
+    public synchronized void onCatalogUpdated(CatalogUpdatedEvent event) {
+        if (event.fullReload()) {
+            reload();
+        } else {
+            append(event.changedItems().stream().map(ItemDto::id).toList());
+        }
+    }
+
+    private void reload() {
+        Map<Long, PriceTimeline.Builder> builders = new HashMap<>();
+        addRows(builders, priceRepository.findHistoryRows(), offerRepository.findHistoryRows(LocalDateTime.now()));
+
+        Map<Long, PriceTimeline> reloaded = new ConcurrentHashMap<>();
+        builders.forEach((itemId, builder) -> reloaded.put(itemId, builder.build()));
+        timelines = reloaded;
+    }
+
+    // Only rows after the oldest last known row of the changed items are read, known rows are skipped by the builders
+    private void append(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        Map<Long, PriceTimeline.Builder> builders = new HashMap<>();
+        long pricesSince = Long.MAX_VALUE;
+        long offersSince = Long.MAX_VALUE;
+        for (Long itemId : itemIds) {
+            PriceTimeline timeline = timelines.getOrDefault(itemId, PriceTimeline.EMPTY);
+            builders.put(itemId, timeline.toBuilder());
+            pricesSince = Math.min(pricesSince, timeline.lastPriceTime());
+            offersSince = Math.min(offersSince, timeline.lastOfferTime());
+        }
+
+        addRows(builders,
+            priceRepository.findHistoryRowsByItemIdAfter(itemIds, fromMicros(pricesSince)),
+            offerRepository.findHistoryRowsByItemIdAfter(itemIds, fromMicros(offersSince), LocalDateTime.now()));
+        builders.forEach((itemId, builder) -> timelines.put(itemId, builder.build()));
+    }
+
+    private static void addRows(
+        Map<Long, PriceTimeline.Builder> builders,
+        List<PriceHistoryRow> priceRows,
+        List<OfferHistoryRow> offerRows
+    ) {
+        for (PriceHistoryRow row : priceRows) {
+            builders.computeIfAbsent(row.itemId(), itemId -> new PriceTimeline.Builder())
+                .addPrice(toMicros(row.createdAt()), row.value(), row.calculatedOfferPrice());
+        }
+        for (OfferHistoryRow row : offerRows) {
+            builders.computeIfAbsent(row.itemId(), itemId -> new PriceTimeline.Builder())
+                .addOffer(toMicros(row.startsAt()), row.endsAt() != null ? toMicros(row.endsAt()) : Long.MAX_VALUE,
+                    row.id(), row.quantity(), row.discountPercentage());
+        }
+    }
+
+    // created_at columns are zone-less, UTC is only used to get a monotonic number out of them
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        if (micros == Long.MIN_VALUE) {
+            return BEGINNING;
+        }
+        return LocalDateTime.ofEpochSecond(
+            Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
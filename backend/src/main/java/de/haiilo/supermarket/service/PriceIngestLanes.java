@@ -0,0 +1,94 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.config.PriceIngestProperties;
+import de.haiilo.supermarket.dto.PriceDto;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import de.haiilo.supermarket.util.PriceLanes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+// Applies consumed prices on single-threaded lanes, an item always goes to the same lane.
+// Prices of different items are written in parallel, those of one item in the order they were consumed.
+// Lanes never write the same item, so they don't run into each other's optimistic locks either.
+@Service
+public class PriceIngestLanes {
+    private final PriceService priceService;
+    private final List<ExecutorService> lanes = new ArrayList<>();
+    private final List<AtomicInteger> pending = new ArrayList<>();
+
+    public PriceIngestLanes(PriceService priceService, PriceIngestProperties properties, SupermarketMetrics metrics) {
+        this.priceService = priceService;
+        for (int lane = 0; lane < properties.getLanes(); lane++) {
+            String name = "price-lane-" + lane;
+            lanes.add(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }));
+            pending.add(metrics.priceLaneDepth(lane));
+        }
+    }
+
+    public boolean isEnabled() {
+        return lanes.size() > 1;
+    }
+
+    // Returns once every lane has committed its share, so the caller acknowledges the batch only afterwards.
+    // If a lane fails the others still commit theirs, the redelivered batch then writes those prices again.
+    public void apply(List<PriceDto> priceDtos) {
+        List<List<PriceDto>> partitions = PriceLanes.partition(priceDtos, lanes.size());
+        List<Future<?>> applied = new ArrayList<>();
+        for (int lane = 0; lane < lanes.size(); lane++) {
+            List<PriceDto> partition = partitions.get(lane);
+            if (partition.isEmpty()) {
+                continue;
+            }
+            AtomicInteger depth = pending.get(lane);
+            depth.addAndGet(partition.size());
+            applied.add(lanes.get(lane).submit(() -> {
+                try {
+                    priceService.createPricesAndUpdateItems(partition);
+                } finally {
+                    depth.addAndGet(-partition.size());
+                }
+            }));
+        }
+        awaitAll(applied);
+    }
+
+    @PreDestroy
+    public void close() {
+        lanes.forEach(ExecutorService::shutdown);
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while applying prices", e);
+            } catch (ExecutionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtime
+                    ? runtime
+                    : new IllegalStateException("Applying prices failed", e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
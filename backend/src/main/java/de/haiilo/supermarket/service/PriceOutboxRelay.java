@@ -0,0 +1,98 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.config.PriceOutboxProperties;
+import de.haiilo.supermarket.domain.PriceOutboxEntry;
+import de.haiilo.supermarket.domain.RelayLock;
+import de.haiilo.supermarket.dto.PriceChangedDto;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import de.haiilo.supermarket.repository.PriceOutboxRepository;
+import de.haiilo.supermarket.repository.RelayLockRepository;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Publishes the price outbox in batches and deletes what the broker confirmed.
+// A crash or lost confirm between publishing and deleting publishes the batch again, so delivery is at least once.
+// Pending changes of an item are always taken from its oldest one, in commit order, so they are published in order:
+// the ones left for a later batch, or committed meanwhile, are newer than any published.
+// Each batch is read, published and deleted holding the price-outbox relay lock, so with the relay enabled
+// on several nodes only one publishes at a time, the others skip their run instead of publishing the same changes.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PriceOutboxRelay {
+    private final PriceOutboxRepository outboxRepository;
+    private final RelayLockRepository lockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceOutboxProperties properties;
+    private final SupermarketMetrics metrics;
+    // Absent without RabbitMQ, changes then stay in the outbox
+    private final Optional<PriceChangePublisher> publisher;
+
+    // Nodes starting together may both insert the row, one of them fails and finds it there
+    @PostConstruct
+    public void createLock() {
+        if (lockRepository.existsById(RelayLock.PRICE_OUTBOX)) {
+            return;
+        }
+        try {
+            lockRepository.save(new RelayLock(RelayLock.PRICE_OUTBOX));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Price outbox relay lock was created by another node", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${supermarket.price-outbox.relay-interval-ms:200}")
+    public synchronized void relay() {
+        if (publisher.isEmpty() || !properties.isRelayEnabled()) {
+            return;
+        }
+        int batchSize = properties.getBatchSize();
+        boolean more;
+        do {
+            more = Boolean.TRUE.equals(transactionTemplate.execute(status -> relayBatch(batchSize)));
+        } while (more);
+    }
+
+    // Returns whether there may be more to relay
+    private boolean relayBatch(int batchSize) {
+        if (lockRepository.tryLock(RelayLock.PRICE_OUTBOX).isEmpty()) {
+            log.debug("Price outbox is being relayed by another node, retrying with the next run");
+            return false;
+        }
+        List<Long> itemIds = outboxRepository.findItemIdsWaitingLongest(PageRequest.of(0, batchSize));
+        if (itemIds.isEmpty()) {
+            return false;
+        }
+        List<PriceOutboxEntry> entries = outboxRepository.findByItemIdInCommitOrder(itemIds, PageRequest.of(0, batchSize));
+        try {
+            publisher.get().publish(entries.stream().map(PriceOutboxRelay::toDto).toList());
+        } catch (RuntimeException e) {
+            metrics.priceChangesRelayed("failed", entries.size());
+            log.warn("Could not publish {} price changes, retrying with the next run", entries.size(), e);
+            return false;
+        }
+        outboxRepository.deleteAllByIdInBatch(entries.stream().map(PriceOutboxEntry::getId).toList());
+        metrics.priceChangesRelayed("published", entries.size());
+        return entries.size() == batchSize;
+    }
+
+    private static PriceChangedDto toDto(PriceOutboxEntry entry) {
+        return PriceChangedDto.builder()
+            .id(entry.getId())
+            .itemId(entry.getItemId())
+            .itemVersion(entry.getItemVersion())
+            .price(entry.getValue())
+            .offerPrice(entry.getCalculatedOfferPrice())
+            .offerQuantity(entry.getOfferQuantity())
+            .changedAt(entry.getCreatedAt())
+            .build();
+    }
+}
@@ -2,36 +2,166 @@ package de.haiilo.supermarket.service;
 
 import de.haiilo.supermarket.domain.Item;
 import de.haiilo.supermarket.domain.Price;
+import de.haiilo.supermarket.domain.PriceOutboxEntry;
 import de.haiilo.supermarket.dto.PriceDto;
+import de.haiilo.supermarket.event.CatalogChangedEvent;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
 import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.repository.PriceOutboxRepository;
 import de.haiilo.supermarket.repository.PriceRepository;
 import de.haiilo.supermarket.util.OfferCalculator;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import javax.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PriceService {
+    static final int MAX_WRITE_ATTEMPTS = 10;
+    private static final long MAX_WRITE_BACKOFF_MILLIS = 5;
+
     private final ItemRepository itemRepository;
     private final PriceRepository priceRepository;
+    private final PriceOutboxRepository priceOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SupermarketMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
     public void createPriceAndUpdateItem(PriceDto priceDto) {
+        metrics.pricesChanged(writeWithRetry(() -> applyPrice(priceDto)));
+    }
+
+    // Applies prices in the given order within one transaction.
+    // Every price is kept as history, but each item is updated and published once per batch.
+    // Unknown items are skipped, so one bad message doesn't make the whole batch redeliver forever.
+    public void createPricesAndUpdateItems(List<PriceDto> priceDtos) {
+        metrics.pricesChanged(writeWithRetry(() -> applyPrices(priceDtos)));
+    }
+
+    // Item is versioned, so a concurrent write of the same item fails on commit instead of being lost.
+    // The losing transaction is retried from scratch on the new state, no locks are taken. A short random
+    // pause keeps writers of the same hot item from colliding again in lockstep.
+    // Returns the item id of every price written, only known to be changed once committed.
+    private List<Long> writeWithRetry(Supplier<List<Long>> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> write.get());
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt == MAX_WRITE_ATTEMPTS || !isWriteConflict(e)) {
+                    throw e;
+                }
+                metrics.priceWriteConflict();
+                log.debug("Retrying price write after conflict, attempt {}", attempt, e);
+                backOff(attempt);
+            }
+        }
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(attempt * MAX_WRITE_BACKOFF_MILLIS + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a price write", e);
+        }
+    }
+
+    // Besides stale item versions, two prices of an item created in the same microsecond collide on the
+    // unique created_at, which a retry with a new timestamp resolves as well
+    private static boolean isWriteConflict(RuntimeException e) {
+        if (e instanceof OptimisticLockingFailureException) {
+            return true;
+        }
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase().contains(Price.UK_ITEM_CREATED_AT);
+    }
+
+    private List<Long> applyPrice(PriceDto priceDto) {
         Item item = itemRepository.findById(priceDto.itemId())
             .orElseThrow(() -> new EntityNotFoundException("Item not found with ID: " + priceDto.itemId()));
 
+        Price newPrice = createPrice(item, priceDto.value());
+        priceRepository.save(newPrice);
+        priceOutboxRepository.save(PriceOutboxEntry.of(item, newPrice));
+        itemRepository.save(item);
+
+        eventPublisher.publishEvent(new CatalogChangedEvent(Set.of(item.getId())));
+        return List.of(item.getId());
+    }
+
+    private List<Long> applyPrices(List<PriceDto> priceDtos) {
+        Set<Long> itemIds = priceDtos.stream()
+            .map(PriceDto::itemId)
+            .collect(Collectors.toSet());
+        Map<Long, Item> itemsById = itemRepository.findAllWithCurrentPriceAndOfferById(itemIds).stream()
+            .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<Price> newPrices = new ArrayList<>(priceDtos.size());
+        Map<Long, Item> updatedItems = new LinkedHashMap<>();
+        Map<Long, LocalDateTime> lastCreatedAt = new HashMap<>();
+        for (PriceDto priceDto : priceDtos) {
+            Item item = itemsById.get(priceDto.itemId());
+            if (item == null) {
+                log.warn("Skipping price {} for unknown item {}", priceDto.value(), priceDto.itemId());
+                continue;
+            }
+            Price newPrice = createPrice(item, priceDto.value());
+            // Several prices of one item in the same batch must not collide on uk_price_item_created_at
+            newPrice.setCreatedAt(nextCreatedAt(lastCreatedAt.get(item.getId())));
+            lastCreatedAt.put(item.getId(), newPrice.getCreatedAt());
+            newPrices.add(newPrice);
+            updatedItems.put(item.getId(), item);
+        }
+        if (newPrices.isEmpty()) {
+            return List.of();
+        }
+        priceRepository.saveAll(newPrices);
+        priceOutboxRepository.saveAll(newPrices.stream()
+            .map(price -> PriceOutboxEntry.of(price.getItem(), price))
+            .toList());
+        itemRepository.saveAll(updatedItems.values());
+
+        eventPublisher.publishEvent(new CatalogChangedEvent(Set.copyOf(updatedItems.keySet())));
+        return newPrices.stream().map(price -> price.getItem().getId()).toList();
+    }
+
+    private static LocalDateTime nextCreatedAt(LocalDateTime previous) {
+        LocalDateTime now = LocalDateTime.now();
+        if (previous == null || now.isAfter(previous)) {
+            return now;
+        }
+        return previous.plus(1, ChronoUnit.MICROS);
+    }
+
+    private Price createPrice(Item item, Integer value) {
         var newPrice = new Price();
         newPrice.setItem(item);
-        newPrice.setValue(priceDto.value());
+        newPrice.setValue(value);
         item.setCurrentPrice(newPrice);
 
         if (item.getCurrentOffer() != null) {
             Integer calculatedPrice = OfferCalculator.calculateOfferPrice(item);
             newPrice.setCalculatedOfferPrice(calculatedPrice);
         }
-        priceRepository.save(newPrice);
-        itemRepository.save(item);
+        return newPrice;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,192 @@
+package de.haiilo.supermarket.service;
+
+import de.haiilo.supermarket.config.PromotionProperties;
+import de.haiilo.supermarket.event.CatalogUpdatedEvent;
+import de.haiilo.supermarket.util.CartLines;
+import de.haiilo.supermarket.util.CompiledPrice;
+import de.haiilo.supermarket.util.OfferCalculator;
+import de.haiilo.supermarket.util.OfferPlan;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Prices carts with the configured promotions on top of the items' current offers.
+// Tiered items get an OfferPlan whenever the catalog changes, mix-and-match groups and basket thresholds are
+// compiled on startup, so a cart costs a lookup per line plus sorting the lines of a mix-and-match group.
+// Items without further tiers are priced by OfferCalculator, as without any promotions.
+@Component
+public class PricingRules {
+    private final CatalogService catalogService;
+    private final int planMaxQuantity;
+    private final Map<Long, int[]> tierQuantities = new HashMap<>();
+    private final Map<Long, int[]> tierDiscounts = new HashMap<>();
+    private final List<PromotionProperties.MixAndMatch> groups;
+    private final Map<Long, Integer> groupByItemId = new HashMap<>();
+    // Highest threshold first
+    private final List<PromotionProperties.BasketThreshold> basketThresholds;
+    // Plans of the current catalog prices
+    private final Map<Long, OfferPlan> plans = new ConcurrentHashMap<>();
+
+    public PricingRules(PromotionProperties properties, CatalogService catalogService) {
+        this.catalogService = catalogService;
+        this.planMaxQuantity = properties.getPlanMaxQuantity();
+        properties.getTiers().forEach((itemId, tiers) -> {
+            int[] quantities = new int[tiers.size()];
+            int[] discounts = new int[tiers.size()];
+            for (int tier = 0; tier < tiers.size(); tier++) {
+                quantities[tier] = tiers.get(tier).getQuantity();
+                discounts[tier] = tiers.get(tier).getDiscountPercentage();
+                validate("Tier of item " + itemId, quantities[tier], discounts[tier]);
+            }
+            tierQuantities.put(itemId, quantities);
+            tierDiscounts.put(itemId, discounts);
+        });
+
+        this.groups = List.copyOf(properties.getMixAndMatch());
+        for (int group = 0; group < groups.size(); group++) {
+            PromotionProperties.MixAndMatch mixAndMatch = groups.get(group);
+            validate("Mix-and-match group " + group, mixAndMatch.getQuantity(), mixAndMatch.getDiscountPercentage());
+            for (Long itemId : mixAndMatch.getItemIds()) {
+                if (groupByItemId.put(itemId, group) != null) {
+                    throw new IllegalStateException("Item " + itemId + " is in more than one mix-and-match group");
+                }
+            }
+        }
+
+        this.basketThresholds = properties.getBasketThresholds().stream()
+            .sorted(Comparator.comparingInt(PromotionProperties.BasketThreshold::getMinTotal).reversed())
+            .toList();
+    }
+
+    // lineTotals are before the cart-wide discount, total is after it
+    public record Pricing(
+        int[] lineTotals,
+        int discount,
+        int total
+    ) {}
+
+    public int total(CartLines lines, ItemPrices prices) {
+        return price(lines, prices).total();
+    }
+
+    public Pricing price(CartLines lines, ItemPrices prices) {
+        int[] lineTotals = new int[lines.size()];
+        int subtotal = 0;
+        // Per group: regular price and count of the units not bundled by an offer
+        List<List<int[]>> groupUnits = groups.isEmpty() ? List.of() : new ArrayList<>(groups.size());
+        for (int group = 0; group < groups.size(); group++) {
+            groupUnits.add(new ArrayList<>());
+        }
+
+        for (int line = 0; line < lines.size(); line++) {
+            long itemId = lines.itemIdAt(line);
+            int quantity = lines.quantityAt(line);
+            CompiledPrice price = prices.priceOf(itemId);
+            OfferPlan plan = planFor(itemId, price);
+            lineTotals[line] = plan != null
+                ? plan.totalFor(quantity)
+                : OfferCalculator.calculateLineTotal(price, quantity);
+            subtotal += lineTotals[line];
+
+            Integer group = groups.isEmpty() ? null : groupByItemId.get(itemId);
+            if (group != null) {
+                int unbundled = plan != null ? plan.unbundledFor(quantity) : unbundled(price, quantity);
+                if (unbundled > 0) {
+                    groupUnits.get(group).add(new int[] {price.price(), unbundled});
+                }
+            }
+        }
+
+        int discount = 0;
+        for (int group = 0; group < groupUnits.size(); group++) {
+            discount += mixAndMatchDiscount(groups.get(group), groupUnits.get(group));
+        }
+        discount += basketDiscount(subtotal - discount);
+        return new Pricing(lineTotals, discount, subtotal - discount);
+    }
+
+    // Keeps the plans in line with the catalog, so checkouts don't compile them
+    @EventListener
+    public void onCatalogUpdated(CatalogUpdatedEvent event) {
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        for (Long itemId : tierQuantities.keySet()) {
+            CatalogEntry entry = catalog.find(itemId);
+            if (entry == null) {
+                plans.remove(itemId);
+            } else if (!plans.containsKey(itemId) || !plans.get(itemId).isFor(entry.price())) {
+                plans.put(itemId, compile(itemId, entry.price()));
+            }
+        }
+    }
+
+    // Prices other than the current ones, e.g. from the price history, get a plan compiled on the spot
+    private OfferPlan planFor(long itemId, CompiledPrice price) {
+        if (tierQuantities.isEmpty() || !tierQuantities.containsKey(itemId)) {
+            return null;
+        }
+        OfferPlan plan = plans.get(itemId);
+        return plan != null && plan.isFor(price) ? plan : compile(itemId, price);
+    }
+
+    private OfferPlan compile(long itemId, CompiledPrice price) {
+        int[] quantities = tierQuantities.get(itemId);
+        int[] discounts = tierDiscounts.get(itemId);
+        int[] bundlePrices = new int[quantities.length];
+        for (int tier = 0; tier < quantities.length; tier++) {
+            bundlePrices[tier] = OfferCalculator.calculateOfferPrice(price.price(), quantities[tier], discounts[tier]);
+        }
+        return OfferPlan.compile(price, quantities, bundlePrices, planMaxQuantity);
+    }
+
+    // Units OfferCalculator charges at the regular price
+    private static int unbundled(CompiledPrice price, int quantity) {
+        if (!price.hasOffer() || quantity < price.offerQuantity()) {
+            return quantity;
+        }
+        return quantity % price.offerQuantity();
+    }
+
+    // Bundles the most expensive units, which is what a customer would pick
+    private static int mixAndMatchDiscount(PromotionProperties.MixAndMatch group, List<int[]> units) {
+        int unitCount = 0;
+        for (int[] priceAndCount : units) {
+            unitCount += priceAndCount[1];
+        }
+        int bundled = unitCount / group.getQuantity() * group.getQuantity();
+        if (bundled == 0) {
+            return 0;
+        }
+        units.sort((a, b) -> Integer.compare(b[0], a[0]));
+        int bundledTotal = 0;
+        for (int[] priceAndCount : units) {
+            int count = Math.min(priceAndCount[1], bundled);
+            bundledTotal += count * priceAndCount[0];
+            bundled -= count;
+            if (bundled == 0) {
+                break;
+            }
+        }
+        return bundledTotal * group.getDiscountPercentage() / 100;
+    }
+
+    private int basketDiscount(int total) {
+        for (PromotionProperties.BasketThreshold threshold : basketThresholds) {
+            if (total >= threshold.getMinTotal()) {
+                return total * threshold.getDiscountPercentage() / 100;
+            }
+        }
+        return 0;
+    }
+
+    private static void validate(String promotion, int quantity, int discountPercentage) {
+        if (quantity < 2 || discountPercentage < 1 || discountPercentage > 99) {
+            throw new IllegalStateException(
+                promotion + " needs a quantity of at least 2 and a discount between 1 and 99 percent");
+        }
+    }
+}
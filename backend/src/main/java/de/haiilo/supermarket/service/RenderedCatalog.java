@@ -0,0 +1,34 @@
+package de.haiilo.supermarket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haiilo.supermarket.mapper.CompactMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+// Response bodies of a catalog version, serialized once and written as is on every read
+public record RenderedCatalog(
+    long version,
+    byte[] json,
+    byte[] gzipJson,
+    byte[] cbor
+) {
+    public static RenderedCatalog render(CatalogSnapshot snapshot, ObjectMapper objectMapper, CompactMapper compactMapper) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(snapshot.items());
+            byte[] cbor = compactMapper.getCborMapper().writeValueAsBytes(compactMapper.toCompactItems(snapshot.items()));
+            return new RenderedCatalog(snapshot.version(), json, gzip(json), cbor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to render catalog version " + snapshot.version(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,11 @@
+package de.haiilo.supermarket.util;
+
+// Indexed view of cart lines, so checkouts can be priced and persisted without boxing ids and quantities
+public interface CartLines {
+
+    int size();
+
+    long itemIdAt(int line);
+
+    int quantityAt(int line);
+}
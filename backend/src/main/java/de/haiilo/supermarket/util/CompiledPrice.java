@@ -0,0 +1,15 @@
+package de.haiilo.supermarket.util;
+
+// Flat copy of an item's current price and offer, so checkout never touches the entity graph.
+// offerQuantity is 0 when there is no offer.
+public record CompiledPrice(
+    int price,
+    int offerQuantity,
+    int offerPrice,
+    long offerId,
+    int offerDiscountPercentage
+) {
+    public boolean hasOffer() {
+        return offerQuantity > 0;
+    }
+}
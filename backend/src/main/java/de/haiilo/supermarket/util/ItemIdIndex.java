@@ -0,0 +1,45 @@
+package de.haiilo.supermarket.util;
+
+import java.util.Arrays;
+
+// Immutable open-addressing map of item id -> position, without boxing ids on lookup
+public final class ItemIdIndex {
+    private static final int EMPTY = -1;
+
+    private final long[] keys;
+    private final int[] positions;
+    private final int mask;
+
+    public ItemIdIndex(long[] itemIds) {
+        int capacity = Integer.highestOneBit(Math.max(itemIds.length, 1) * 2 - 1) << 1;
+        keys = new long[capacity];
+        positions = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(positions, EMPTY);
+        for (int position = 0; position < itemIds.length; position++) {
+            int slot = slot(itemIds[position]);
+            while (positions[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = itemIds[position];
+            positions[slot] = position;
+        }
+    }
+
+    // Returns -1 when the item is unknown
+    public int positionOf(long itemId) {
+        int slot = slot(itemId);
+        while (positions[slot] != EMPTY) {
+            if (keys[slot] == itemId) {
+                return positions[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    private int slot(long itemId) {
+        long hash = itemId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,72 @@
+package de.haiilo.supermarket.util;
+
+import java.util.Arrays;
+
+// Sums quantities per item id in first-seen order, without boxing.
+// Ids and quantities live in dense arrays, an open-addressing table maps ids to their index.
+public final class ItemQuantityMap implements CartLines {
+    private static final int EMPTY = 0;
+
+    private long[] itemIds = new long[16];
+    private int[] quantities = new int[16];
+    // Index + 1 into the dense arrays, EMPTY for free slots
+    private int[] slots = new int[32];
+    private int size;
+
+    // Returns the summed quantity of the item, throws ArithmeticException on int overflow
+    public int add(long itemId, int quantity) {
+        int slot = slot(itemId, slots.length - 1);
+        while (slots[slot] != EMPTY) {
+            int index = slots[slot] - 1;
+            if (itemIds[index] == itemId) {
+                quantities[index] = Math.addExact(quantities[index], quantity);
+                return quantities[index];
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+
+        if (size == itemIds.length) {
+            itemIds = Arrays.copyOf(itemIds, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        itemIds[size] = itemId;
+        quantities[size] = quantity;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return quantity;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long itemIdAt(int line) {
+        return itemIds[line];
+    }
+
+    @Override
+    public int quantityAt(int line) {
+        return quantities[line];
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = slot(itemIds[index], mask);
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+    }
+
+    private static int slot(long itemId, int mask) {
+        long hash = itemId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
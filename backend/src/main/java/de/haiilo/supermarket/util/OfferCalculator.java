@@ -12,8 +12,15 @@ public final class OfferCalculator {
             return null;
         }
         
-        int basePrice = item.getCurrentPrice().getValue() * item.getCurrentOffer().getQuantity();
-        int discountPercent = item.getCurrentOffer().getDiscountPercentage();
+        return calculateOfferPrice(
+            item.getCurrentPrice().getValue(),
+            item.getCurrentOffer().getQuantity(),
+            item.getCurrentOffer().getDiscountPercentage()
+        );
+    }
+
+    public static int calculateOfferPrice(int price, int offerQuantity, int discountPercent) {
+        int basePrice = price * offerQuantity;
         int discountedPrice = basePrice * (100 - discountPercent) / 100;
         return Math.round(discountedPrice / 5.0f) * 5;
     }
@@ -41,6 +48,18 @@ public final class OfferCalculator {
                remainingItems * itemPrice;
     }
 
+    // Same as calculateTotalPrice, for prices compiled into the catalog
+    public static int calculateLineTotal(CompiledPrice price, int quantity) {
+        if (!price.hasOffer() || quantity < price.offerQuantity()) {
+            return quantity * price.price();
+        }
+
+        int offerSets = quantity / price.offerQuantity();
+        int remainingItems = quantity % price.offerQuantity();
+
+        return offerSets * price.offerPrice() + remainingItems * price.price();
+    }
+
     private OfferCalculator() {
     }
 }
@@ -0,0 +1,125 @@
+package de.haiilo.supermarket.util;
+
+import java.util.Arrays;
+
+// Cheapest total for a quantity of one item under several offer tiers ("2 for 45, 5 for 100"), precomputed by
+// dynamic programming, so pricing a cart line is a table lookup. Never charges more than the regular price.
+// Without bundle tiers the current offer is applied as OfferCalculator does, even where its rounded price
+// makes a full offer set cost more than the same units at the regular price.
+// Above the table the tier with the lowest unit price is repeated: once a quantity is large enough
+// (tier quantity * largest tier quantity), some cheapest combination always contains that tier.
+public final class OfferPlan {
+    private final int price;
+    private final int offerQuantity;
+    private final int offerPrice;
+    private final int[] totals;
+    // Units charged at the regular price in the cheapest combination, left for mix-and-match
+    private final int[] unbundled;
+    private final int repeatQuantity;
+    private final int repeatPrice;
+
+    private OfferPlan(CompiledPrice compiledPrice, int[] totals, int[] unbundled, int repeatQuantity, int repeatPrice) {
+        this.price = compiledPrice.price();
+        this.offerQuantity = compiledPrice.offerQuantity();
+        this.offerPrice = compiledPrice.offerPrice();
+        this.totals = totals;
+        this.unbundled = unbundled;
+        this.repeatQuantity = repeatQuantity;
+        this.repeatPrice = repeatPrice;
+    }
+
+    // The current offer of the compiled price is a tier too, bundle prices are for the whole bundle
+    public static OfferPlan compile(CompiledPrice compiledPrice, int[] bundleQuantities, int[] bundlePrices, int maxQuantity) {
+        if (bundleQuantities.length == 0) {
+            return compileCurrentOffer(compiledPrice, maxQuantity);
+        }
+        int tierCount = bundleQuantities.length + (compiledPrice.hasOffer() ? 1 : 0);
+        int[] quantities = Arrays.copyOf(bundleQuantities, tierCount);
+        int[] prices = Arrays.copyOf(bundlePrices, tierCount);
+        if (compiledPrice.hasOffer()) {
+            quantities[tierCount - 1] = compiledPrice.offerQuantity();
+            prices[tierCount - 1] = compiledPrice.offerPrice();
+        }
+
+        // The regular price is the tier of one unit
+        int repeatQuantity = 1;
+        int repeatPrice = compiledPrice.price();
+        int largestQuantity = 1;
+        for (int tier = 0; tier < tierCount; tier++) {
+            if (quantities[tier] < 1) {
+                throw new IllegalArgumentException("Offer tier quantity must be positive");
+            }
+            largestQuantity = Math.max(largestQuantity, quantities[tier]);
+            if ((long) prices[tier] * repeatQuantity < (long) repeatPrice * quantities[tier]) {
+                repeatQuantity = quantities[tier];
+                repeatPrice = prices[tier];
+            }
+        }
+
+        int size = Math.max(maxQuantity, repeatQuantity * largestQuantity);
+        int[] totals = new int[size + 1];
+        int[] unbundled = new int[size + 1];
+        for (int quantity = 1; quantity <= size; quantity++) {
+            int best = totals[quantity - 1] + compiledPrice.price();
+            int bestUnbundled = unbundled[quantity - 1] + 1;
+            for (int tier = 0; tier < tierCount; tier++) {
+                int rest = quantity - quantities[tier];
+                if (rest < 0) {
+                    continue;
+                }
+                int total = totals[rest] + prices[tier];
+                // On a tie the combination with more bundled units wins, as OfferCalculator would apply the offer
+                if (total < best || total == best && unbundled[rest] < bestUnbundled) {
+                    best = total;
+                    bestUnbundled = unbundled[rest];
+                }
+            }
+            totals[quantity] = best;
+            unbundled[quantity] = bestUnbundled;
+        }
+        return new OfferPlan(compiledPrice, totals, unbundled, repeatQuantity, repeatPrice);
+    }
+
+    // Every full offer set is bundled, the rest charged at the regular price
+    private static OfferPlan compileCurrentOffer(CompiledPrice compiledPrice, int maxQuantity) {
+        int[] totals = new int[maxQuantity + 1];
+        int[] unbundled = new int[maxQuantity + 1];
+        for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+            totals[quantity] = OfferCalculator.calculateLineTotal(compiledPrice, quantity);
+            unbundled[quantity] = compiledPrice.hasOffer() && quantity >= compiledPrice.offerQuantity()
+                ? quantity % compiledPrice.offerQuantity()
+                : quantity;
+        }
+        return compiledPrice.hasOffer()
+            ? new OfferPlan(compiledPrice, totals, unbundled, compiledPrice.offerQuantity(), compiledPrice.offerPrice())
+            : new OfferPlan(compiledPrice, totals, unbundled, 1, compiledPrice.price());
+    }
+
+    public int totalFor(int quantity) {
+        if (quantity < totals.length) {
+            return totals[quantity];
+        }
+        int repeats = repeatsAbove(quantity);
+        return repeats * repeatPrice + totals[quantity - repeats * repeatQuantity];
+    }
+
+    public int unbundledFor(int quantity) {
+        if (quantity < totals.length) {
+            return unbundled[quantity];
+        }
+        return unbundled[quantity - repeatsAbove(quantity) * repeatQuantity];
+    }
+
+    // Plans are compiled for one price and offer, a changed price needs a new plan
+    public boolean isFor(CompiledPrice compiledPrice) {
+        return price == compiledPrice.price()
+            && offerQuantity == compiledPrice.offerQuantity()
+            && offerPrice == compiledPrice.offerPrice();
+    }
+
+    // Repeats of the cheapest tier bringing the quantity back into the table
+    private int repeatsAbove(int quantity) {
+        int maxQuantity = totals.length - 1;
+        return (quantity - maxQuantity + repeatQuantity - 1) / repeatQuantity;
+    }
+}
@@ -0,0 +1,27 @@
+package de.haiilo.supermarket.util;
+
+import de.haiilo.supermarket.dto.PriceDto;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class PriceCoalescer {
+
+    // Keeps only the latest price per item, superseded values within the batch are dropped.
+    // Items stay in the order of their latest update, so the relative order of what's left is preserved.
+    public static List<PriceDto> latestPerItem(List<PriceDto> priceDtos) {
+        Map<Long, PriceDto> latestByItemId = new LinkedHashMap<>();
+        for (PriceDto priceDto : priceDtos) {
+            latestByItemId.remove(priceDto.itemId());
+            latestByItemId.put(priceDto.itemId(), priceDto);
+        }
+        if (latestByItemId.size() == priceDtos.size()) {
+            return priceDtos;
+        }
+        return new ArrayList<>(latestByItemId.values());
+    }
+
+    private PriceCoalescer() {
+    }
+}
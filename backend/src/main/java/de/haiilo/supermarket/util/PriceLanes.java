@@ -0,0 +1,28 @@
+package de.haiilo.supermarket.util;
+
+import de.haiilo.supermarket.dto.PriceDto;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class PriceLanes {
+
+    // Item ids are sequential, so plain modulo spreads them evenly
+    public static int laneOf(long itemId, int laneCount) {
+        return Math.floorMod(Long.hashCode(itemId), laneCount);
+    }
+
+    // Splits prices by lane, keeping their order within each lane - and so the order per item
+    public static List<List<PriceDto>> partition(List<PriceDto> priceDtos, int laneCount) {
+        List<List<PriceDto>> lanes = new ArrayList<>(laneCount);
+        for (int lane = 0; lane < laneCount; lane++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (PriceDto priceDto : priceDtos) {
+            lanes.get(laneOf(priceDto.itemId(), laneCount)).add(priceDto);
+        }
+        return lanes;
+    }
+
+    private PriceLanes() {
+    }
+}
@@ -0,0 +1,143 @@
+package de.haiilo.supermarket.util;
+
+import java.util.Arrays;
+
+// Price and offer history of one item, as parallel arrays sorted by time, for "as of" lookups by binary search.
+// Times are epoch microseconds. Immutable, appending goes through a Builder.
+public final class PriceTimeline {
+    public static final PriceTimeline EMPTY = new Builder().build();
+
+    private static final int NO_OFFER_PRICE = -1;
+
+    private final long[] priceTimes;
+    private final int[] prices;
+    // Offer price calculated with the price, NO_OFFER_PRICE when there was no offer at the time
+    private final int[] offerPrices;
+    private final long[] offerTimes;
+    // Long.MAX_VALUE for open-ended offers
+    private final long[] offerEndTimes;
+    private final long[] offerIds;
+    private final int[] offerQuantities;
+    private final int[] offerDiscounts;
+
+    private PriceTimeline(Builder builder) {
+        this.priceTimes = Arrays.copyOf(builder.priceTimes, builder.priceCount);
+        this.prices = Arrays.copyOf(builder.prices, builder.priceCount);
+        this.offerPrices = Arrays.copyOf(builder.offerPrices, builder.priceCount);
+        this.offerTimes = Arrays.copyOf(builder.offerTimes, builder.offerCount);
+        this.offerEndTimes = Arrays.copyOf(builder.offerEndTimes, builder.offerCount);
+        this.offerIds = Arrays.copyOf(builder.offerIds, builder.offerCount);
+        this.offerQuantities = Arrays.copyOf(builder.offerQuantities, builder.offerCount);
+        this.offerDiscounts = Arrays.copyOf(builder.offerDiscounts, builder.offerCount);
+    }
+
+    // Price and offer in effect at the given time, null before the first price
+    public CompiledPrice priceAt(long time) {
+        int price = lastAtOrBefore(priceTimes, time);
+        if (price < 0) {
+            return null;
+        }
+        // The latest started offer is in effect until it ends, earlier ones don't come back
+        int offer = lastAtOrBefore(offerTimes, time);
+        if (offer < 0 || time >= offerEndTimes[offer]) {
+            return new CompiledPrice(prices[price], 0, 0, 0, 0);
+        }
+        // The stored offer price was calculated with this offer only if it had started when the price was written
+        int offerPrice = offerPrices[price] != NO_OFFER_PRICE && offerTimes[offer] <= priceTimes[price]
+            ? offerPrices[price]
+            : OfferCalculator.calculateOfferPrice(prices[price], offerQuantities[offer], offerDiscounts[offer]);
+        return new CompiledPrice(prices[price], offerQuantities[offer], offerPrice, offerIds[offer], offerDiscounts[offer]);
+    }
+
+    // Time of the price in effect at the given time, Long.MIN_VALUE before the first price
+    public long priceValidFrom(long time) {
+        int price = lastAtOrBefore(priceTimes, time);
+        return price < 0 ? Long.MIN_VALUE : priceTimes[price];
+    }
+
+    public long lastPriceTime() {
+        return priceTimes.length == 0 ? Long.MIN_VALUE : priceTimes[priceTimes.length - 1];
+    }
+
+    public long lastOfferTime() {
+        return offerTimes.length == 0 ? Long.MIN_VALUE : offerTimes[offerTimes.length - 1];
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        for (int i = 0; i < priceTimes.length; i++) {
+            builder.addPrice(priceTimes[i], prices[i], offerPrices[i] == NO_OFFER_PRICE ? null : offerPrices[i]);
+        }
+        for (int i = 0; i < offerTimes.length; i++) {
+            builder.addOffer(offerTimes[i], offerEndTimes[i], offerIds[i], offerQuantities[i], offerDiscounts[i]);
+        }
+        return builder;
+    }
+
+    private static int lastAtOrBefore(long[] times, long time) {
+        int position = Arrays.binarySearch(times, time);
+        if (position >= 0) {
+            // Times are unique per item (uk_price_item_created_at, uk_offer_item_starts_at)
+            return position;
+        }
+        return -position - 2;
+    }
+
+    // Rows must be added in time order, rows not after the last one are ignored as already known
+    public static final class Builder {
+        private long[] priceTimes = new long[4];
+        private int[] prices = new int[4];
+        private int[] offerPrices = new int[4];
+        private int priceCount;
+        private long[] offerTimes = new long[2];
+        private long[] offerEndTimes = new long[2];
+        private long[] offerIds = new long[2];
+        private int[] offerQuantities = new int[2];
+        private int[] offerDiscounts = new int[2];
+        private int offerCount;
+
+        public Builder addPrice(long time, int price, Integer offerPrice) {
+            if (priceCount > 0 && time <= priceTimes[priceCount - 1]) {
+                return this;
+            }
+            if (priceCount == priceTimes.length) {
+                priceTimes = Arrays.copyOf(priceTimes, priceCount * 2);
+                prices = Arrays.copyOf(prices, priceCount * 2);
+                offerPrices = Arrays.copyOf(offerPrices, priceCount * 2);
+            }
+            priceTimes[priceCount] = time;
+            prices[priceCount] = price;
+            offerPrices[priceCount] = offerPrice != null ? offerPrice : NO_OFFER_PRICE;
+            priceCount++;
+            return this;
+        }
+
+        public Builder addOffer(long time, long offerId, int quantity, int discountPercentage) {
+            return addOffer(time, Long.MAX_VALUE, offerId, quantity, discountPercentage);
+        }
+
+        public Builder addOffer(long time, long endTime, long offerId, int quantity, int discountPercentage) {
+            if (offerCount > 0 && time <= offerTimes[offerCount - 1]) {
+                return this;
+            }
+            if (offerCount == offerTimes.length) {
+                offerTimes = Arrays.copyOf(offerTimes, offerCount * 2);
+                offerEndTimes = Arrays.copyOf(offerEndTimes, offerCount * 2);
+                offerIds = Arrays.copyOf(offerIds, offerCount * 2);
+                offerQuantities = Arrays.copyOf(offerQuantities, offerCount * 2);
+                offerDiscounts = Arrays.copyOf(offerDiscounts, offerCount * 2);
+            }
+            offerTimes[offerCount] = time;
+            offerEndTimes[offerCount] = endTime;
+            offerIds[offerCount] = offerId;
+            offerQuantities[offerCount] = quantity;
+            offerDiscounts[offerCount] = discountPercentage;
+            offerCount++;
+            return this;
+        }
+
+        public PriceTimeline build() {
+            return new PriceTimeline(this);
+        }
+    }
+}
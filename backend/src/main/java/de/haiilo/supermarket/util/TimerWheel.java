@@ -0,0 +1,73 @@
+package de.haiilo.supermarket.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+// Hashed timer wheel: a task is put into the bucket of its deadline tick, advancing the wheel only looks
+// at the buckets of the ticks that passed. Scheduling is O(1), advancing O(tasks in the passed buckets).
+// Tasks further out than one revolution share buckets with nearer ones and are skipped until they're due.
+// Not thread-safe, callers synchronize.
+public final class TimerWheel<T> {
+    private final long tickMillis;
+    private final List<List<Timeout<T>>> buckets;
+    private final int mask;
+    // Next tick to be processed
+    private long currentTick;
+    private int size;
+
+    // wheelSize is rounded up to a power of two
+    public TimerWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        int bucketCount = Math.max(Integer.highestOneBit(wheelSize - 1) << 1, 1);
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.mask = buckets.size() - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // Never fires early: a task is due from the first tick starting at or after its deadline.
+    // Deadlines already passed fire with the next tick.
+    public void schedule(long deadlineMillis, T task) {
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick);
+        buckets.get((int) (tick & mask)).add(new Timeout<>(deadlineMillis, tick, task));
+        size++;
+    }
+
+    // Tasks due up to the given time, in deadline order
+    public List<T> advance(long nowMillis) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        if (nowTick < currentTick) {
+            return List.of();
+        }
+        // Every bucket is visited at most once, even when the wheel fell behind by more than a revolution
+        long lastTick = Math.min(nowTick, currentTick + mask);
+        List<Timeout<T>> due = new ArrayList<>();
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            Iterator<Timeout<T>> bucket = buckets.get((int) (tick & mask)).iterator();
+            while (bucket.hasNext()) {
+                Timeout<T> timeout = bucket.next();
+                if (timeout.tick() <= nowTick) {
+                    due.add(timeout);
+                    bucket.remove();
+                }
+            }
+        }
+        currentTick = nowTick + 1;
+        size -= due.size();
+        due.sort(Comparator.comparingLong(Timeout::deadlineMillis));
+        return due.stream().map(Timeout::task).toList();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private record Timeout<T>(long deadlineMillis, long tick, T task) {}
+}
@@ -0,0 +1,87 @@
+package de.haiilo.supermarket.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.dto.CheckoutRequest;
+import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.dto.PriceDto;
+import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.service.OrderService;
+import de.haiilo.supermarket.service.PriceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Own database, so the price changes don't leak into other tests
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:entity-cache")
+class EntityCacheIntegrationTest {
+
+    @Autowired
+    private PriceService priceService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private Item apple;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        apple = itemRepository.findAll().stream()
+            .filter(item -> item.getName().equals("Apple"))
+            .findFirst()
+            .orElseThrow();
+        statistics.clear();
+    }
+
+    @Test
+    void priceWrite_loadsItemWithPriceAndOfferFromCache() {
+        // When
+        priceService.createPriceAndUpdateItem(new PriceDto(apple.getId(), 32));
+        long loadsOfWrite = statistics.getEntityLoadCount();
+        Integer currentPrice = transactionTemplate.execute(status ->
+            itemRepository.findById(apple.getId()).orElseThrow().getCurrentPrice().getValue());
+
+        // Then
+        assertEquals(0, loadsOfWrite);
+        // The written price is cached on commit, reading it back doesn't hit the database either
+        assertEquals(32, currentPrice);
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 6);
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+            .tags("region", Item.CACHE_REGION, "result", "hit")
+            .functionCounter());
+    }
+
+    @Test
+    void checkout_loadsNothing() {
+        // Given
+        ItemDto item = ItemDto.builder().id(apple.getId()).build();
+        CheckoutRequest request = new CheckoutRequest(List.of(new CheckoutRequest.CartItem(item, 1)), null);
+
+        // When
+        orderService.processCheckout(request);
+
+        // Then
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getQueryExecutionCount());
+    }
+}
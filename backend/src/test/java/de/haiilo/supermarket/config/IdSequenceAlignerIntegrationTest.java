@@ -0,0 +1,39 @@
+package de.haiilo.supermarket.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.haiilo.supermarket.domain.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class IdSequenceAlignerIntegrationTest {
+    private static final long LEGACY_ORDER_ID = 1_000_000L;
+
+    @Autowired
+    private IdSequenceAligner idSequenceAligner;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from kata_order where id = ?", LEGACY_ORDER_ID);
+    }
+
+    @Test
+    void alignSequences_restartsSequenceAboveExistingIds() {
+        // Given
+        jdbcTemplate.update("insert into kata_order (id, status, created_at, total) values (?, 'COMPLETED', now(), 0)",
+            LEGACY_ORDER_ID);
+
+        // When
+        idSequenceAligner.alignSequences();
+
+        // Then
+        Long nextId = jdbcTemplate.queryForObject("select next value for " + Order.ID_SEQUENCE, Long.class);
+        assertTrue(nextId > LEGACY_ORDER_ID);
+    }
+}
@@ -1,22 +1,46 @@
 package de.haiilo.supermarket.controller;
 
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import de.haiilo.supermarket.config.DataInitializer;
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.dto.CompactItem;
+import de.haiilo.supermarket.dto.PriceDto;
 import de.haiilo.supermarket.repository.ItemRepository;
 import de.haiilo.supermarket.repository.OfferRepository;
+import de.haiilo.supermarket.service.CatalogService;
+import de.haiilo.supermarket.service.PriceService;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -34,10 +58,20 @@ class ItemControllerIntegrationTest {
     @Autowired
     private DataInitializer dataInitializer;
 
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private PriceService priceService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @BeforeEach
     void setUp() throws Exception {
         itemRepository.deleteAll();
         dataInitializer.initData(itemRepository, offerRepository).run();
+        catalogService.refresh();
     }
 
     @Nested
@@ -64,11 +98,314 @@ class ItemControllerIntegrationTest {
         @Test
         void noItemsInDatabase() throws Exception {
             itemRepository.deleteAll();
+            catalogService.refresh();
 
             mockMvc.perform(get("/api/items")
                     .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
         }
+
+        @Test
+        void notModified_whenETagMatches() throws Exception {
+            MvcResult first = mockMvc.perform(get("/api/items"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+            String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+            mockMvc.perform(get("/api/items")
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        }
+
+        @Test
+        void reflectsCommittedPriceChange() throws Exception {
+            List<Item> items = itemRepository.findAll();
+            Item apple = items.get(0);
+
+            priceService.createPriceAndUpdateItem(PriceDto.builder()
+                .itemId(apple.getId())
+                .value(40)
+                .build());
+
+            mockMvc.perform(get("/api/items"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].currentPriceValue", is(40)))
+                .andExpect(jsonPath("$[0].currentOffer.finalPrice", is(60)))
+                .andExpect(jsonPath("$[1].currentPriceValue", is(50)));
+        }
+
+        @Test
+        void gzipEncoded_whenAccepted() throws Exception {
+            byte[] plain = mockMvc.perform(get("/api/items"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+            byte[] gzipped = mockMvc.perform(get("/api/items")
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+                assertArrayEquals(plain, in.readAllBytes());
+            }
+        }
+
+        @Test
+        void notGzipEncoded_whenRefused() throws Exception {
+            mockMvc.perform(get("/api/items")
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+
+            mockMvc.perform(get("/api/items")
+                    .header(HttpHeaders.ACCEPT_ENCODING, "br, *;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+
+            mockMvc.perform(get("/api/items")
+                    .header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, *;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        }
+
+        @Test
+        void cborEncoded_whenAccepted() throws Exception {
+            byte[] cbor = mockMvc.perform(get("/api/items")
+                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_CBOR_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-cbor\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+            List<CompactItem> items = new CBORMapper().readValue(cbor, new TypeReference<>() {});
+            assertEquals(3, items.size());
+            assertEquals(new CompactItem(items.get(0).id(), "Apple", 30, 2, 45), items.get(0));
+            assertEquals(new CompactItem(items.get(2).id(), "Peach", 60, null, null), items.get(2));
+        }
+
+        @Test
+        void json_whenCborIsNotPreferred() throws Exception {
+            mockMvc.perform(get("/api/items")
+                    .header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, */*"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$", hasSize(3)));
+        }
+    }
+
+    @Nested
+    class getItemChanges {
+        @Test
+        void fullSnapshot_whenVersionPredatesLastReload() throws Exception {
+            mockMvc.perform(get("/api/items").param("sinceVersion", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(catalogService.getSnapshot().version())))
+                .andExpect(jsonPath("$.fullSnapshot", is(true)))
+                .andExpect(jsonPath("$.items", hasSize(3)));
+        }
+
+        @Test
+        void fullSnapshot_whenVersionIsFromAnotherNode() throws Exception {
+            // A version of another epoch, e.g. from another node or before a restart
+            long version = catalogService.getSnapshot().version() + (1L << 32);
+
+            mockMvc.perform(get("/api/items").param("sinceVersion", Long.toString(version)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fullSnapshot", is(true)))
+                .andExpect(jsonPath("$.items", hasSize(3)));
+        }
+
+        @Test
+        void onlyChangedItems() throws Exception {
+            long version = catalogService.getSnapshot().version();
+            Item banana = itemRepository.findAll().get(1);
+
+            priceService.createPriceAndUpdateItem(PriceDto.builder()
+                .itemId(banana.getId())
+                .value(55)
+                .build());
+
+            mockMvc.perform(get("/api/items").param("sinceVersion", Long.toString(version)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(version + 1)))
+                .andExpect(jsonPath("$.fullSnapshot", is(false)))
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Banana")))
+                .andExpect(jsonPath("$.items[0].currentPriceValue", is(55)));
+        }
+
+        @Test
+        void noItems_whenUpToDate() throws Exception {
+            long version = catalogService.getSnapshot().version();
+
+            mockMvc.perform(get("/api/items").param("sinceVersion", Long.toString(version)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(version)))
+                .andExpect(jsonPath("$.fullSnapshot", is(false)))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+        }
+    }
+
+    @Nested
+    class getItemPage {
+        @Test
+        void pagesByCursor() throws Exception {
+            MvcResult first = mockMvc.perform(get("/api/items/page").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].name", is("Apple")))
+                .andExpect(jsonPath("$.items[1].name", is("Banana")))
+                .andExpect(jsonPath("$.nextCursor").isNumber())
+                .andReturn();
+            String cursor = objectMapper.readTree(first.getResponse().getContentAsString()).get("nextCursor").asText();
+
+            mockMvc.perform(get("/api/items/page").param("size", "2").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Peach")))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+        }
+
+        @Test
+        void filtersByOffer() throws Exception {
+            mockMvc.perform(get("/api/items/page").param("hasOffer", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Peach")));
+
+            mockMvc.perform(get("/api/items/page").param("hasOffer", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)));
+        }
+
+        @Test
+        void filtersByNamePrefix() throws Exception {
+            mockMvc.perform(get("/api/items/page").param("namePrefix", "Ba"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Banana")))
+                .andExpect(jsonPath("$.items[0].currentOffer.finalPrice", is(125)));
+
+            mockMvc.perform(get("/api/items/page").param("namePrefix", "%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+        }
+    }
+
+    @Nested
+    class exportItems {
+        @Test
+        void streamsNdjson() throws Exception {
+            MvcResult result = mockMvc.perform(get("/api/items/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+            List<String> lines = body.lines().toList();
+            assertEquals(3, lines.size());
+            assertEquals("Apple", objectMapper.readTree(lines.get(0)).get("name").asText());
+            assertEquals("Peach", objectMapper.readTree(lines.get(2)).get("name").asText());
+        }
+    }
+
+    @Nested
+    class getPriceAt {
+        @Test
+        void priceAsOfTime() throws Exception {
+            Item apple = itemRepository.findAll().get(0);
+            LocalDateTime beforeChange = LocalDateTime.now();
+            priceService.createPriceAndUpdateItem(PriceDto.builder()
+                .itemId(apple.getId())
+                .value(40)
+                .build());
+
+            mockMvc.perform(get("/api/items/{itemId}/price", apple.getId())
+                    .param("at", beforeChange.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price", is(30)))
+                .andExpect(jsonPath("$.offer.quantity", is(2)))
+                .andExpect(jsonPath("$.offer.finalPrice", is(45)));
+            mockMvc.perform(get("/api/items/{itemId}/price", apple.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price", is(40)))
+                .andExpect(jsonPath("$.offer.finalPrice", is(60)));
+        }
+
+        @Test
+        void notFound_beforeFirstPrice() throws Exception {
+            Item apple = itemRepository.findAll().get(0);
+
+            mockMvc.perform(get("/api/items/{itemId}/price", apple.getId())
+                    .param("at", "2000-01-01T00:00:00"))
+                .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    class streamItems {
+        @Test
+        void resumesWithMissedDeltas() throws Exception {
+            long version = catalogService.getSnapshot().version();
+            Item apple = itemRepository.findAll().get(0);
+
+            priceService.createPriceAndUpdateItem(PriceDto.builder()
+                .itemId(apple.getId())
+                .value(40)
+                .build());
+
+            MvcResult result = mockMvc.perform(get("/api/items/stream")
+                    .param("sinceVersion", Long.toString(version)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            String events = awaitEvents(result, "event:price");
+            assertTrue(events.contains("id:" + (version + 1)));
+            assertTrue(events.contains("\"id\":" + apple.getId() + ",\"name\":\"Apple\",\"currentPriceValue\":40"));
+        }
+
+        @Test
+        void reset_whenVersionIsNoLongerBuffered() throws Exception {
+            MvcResult result = mockMvc.perform(get("/api/items/stream")
+                    .header("Last-Event-ID", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            String events = awaitEvents(result, "event:reset");
+            assertTrue(events.contains("{\"version\":" + catalogService.getSnapshot().version() + "}"));
+        }
+
+        @Test
+        void reset_whenCatalogIsFullyReloaded() throws Exception {
+            MvcResult result = mockMvc.perform(get("/api/items/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            // E.g. after invalidations from other nodes were missed
+            catalogService.refresh();
+            long version = catalogService.getSnapshot().version();
+
+            String events = awaitEvents(result, "event:reset");
+            assertTrue(events.contains("{\"version\":" + version + "}"), events);
+        }
+
+        private String awaitEvents(MvcResult result, String expected) throws Exception {
+            Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+            String events = result.getResponse().getContentAsString();
+            while (!events.contains(expected) && Instant.now().isBefore(deadline)) {
+                Thread.sleep(20);
+                events = result.getResponse().getContentAsString();
+            }
+            assertTrue(events.contains(expected), events);
+            return events;
+        }
     }
 }
@@ -0,0 +1,170 @@
+package de.haiilo.supermarket.controller;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haiilo.supermarket.config.DataInitializer;
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.dto.ScheduledOfferDto;
+import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.repository.OfferRepository;
+import de.haiilo.supermarket.service.CatalogService;
+import de.haiilo.supermarket.service.OfferService;
+import de.haiilo.supermarket.util.OfferCalculator;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+// Own database, so the offers don't leak into other tests
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:offer-controller")
+@AutoConfigureMockMvc
+class OfferControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @Autowired
+    private DataInitializer dataInitializer;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private OfferService offerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Item peach;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        itemRepository.deleteAll();
+        dataInitializer.initData(itemRepository, offerRepository).run();
+        catalogService.refresh();
+        peach = itemRepository.findAll().stream()
+            .filter(item -> item.getName().equals("Peach"))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    @Nested
+    class scheduleOffer {
+
+        @Test
+        void startingNow() throws Exception {
+            // When
+            ResultActions result = postOffer(ScheduledOfferDto.builder()
+                .itemId(peach.getId())
+                .quantity(2)
+                .discountPercentage(10)
+                .build());
+
+            // Then
+            result
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").isNumber())
+                .andExpect(jsonPath("$.startsAt").isString());
+            ItemDto item = catalogedPeach();
+            assertEquals(2, item.currentOffer().quantity());
+            assertEquals(OfferCalculator.calculateOfferPrice(60, 2, 10), item.currentOffer().finalPrice());
+        }
+
+        @Test
+        void startingAndEndingLater() throws Exception {
+            // Given
+            LocalDateTime startsAt = LocalDateTime.now().plus(Duration.ofMillis(300));
+            LocalDateTime endsAt = startsAt.plus(Duration.ofMillis(300));
+
+            // When
+            postOffer(ScheduledOfferDto.builder()
+                .itemId(peach.getId())
+                .quantity(3)
+                .discountPercentage(20)
+                .startsAt(startsAt)
+                .endsAt(endsAt)
+                .build())
+                .andExpect(status().isCreated());
+
+            // Then
+            assertNull(catalogedPeach().currentOffer());
+
+            sleepUntil(startsAt);
+            offerService.tick();
+            assertEquals(3, catalogedPeach().currentOffer().quantity());
+
+            sleepUntil(endsAt);
+            offerService.tick();
+            assertNull(catalogedPeach().currentOffer());
+            assertEquals(60, catalogedPeach().currentPriceValue());
+        }
+
+        @Test
+        void invalidQuantity() throws Exception {
+            // When
+            ResultActions result = postOffer(ScheduledOfferDto.builder()
+                .itemId(peach.getId())
+                .quantity(1)
+                .discountPercentage(10)
+                .build());
+
+            // Then
+            result
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage", is("Offer quantity must be at least 2")));
+        }
+
+        @Test
+        void unknownItem() throws Exception {
+            // When
+            ResultActions result = postOffer(ScheduledOfferDto.builder()
+                .itemId(999L)
+                .quantity(2)
+                .discountPercentage(10)
+                .build());
+
+            // Then
+            result
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorMessage", is("Item not found with ID: 999")));
+        }
+    }
+
+    private ResultActions postOffer(ScheduledOfferDto offerDto) throws Exception {
+        return mockMvc.perform(post("/api/offers")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(offerDto)));
+    }
+
+    private ItemDto catalogedPeach() {
+        return catalogService.getSnapshot().find(peach.getId()).item();
+    }
+
+    // One tick past the time, the wheel fires in the tick starting at or after a deadline
+    private static void sleepUntil(LocalDateTime time) throws InterruptedException {
+        long millis = Duration.between(LocalDateTime.now(), time).toMillis() + 150;
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package de.haiilo.supermarket.controller;
 
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import de.haiilo.supermarket.config.DataInitializer;
 import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.dto.BatchCheckoutRequest;
 import de.haiilo.supermarket.dto.CheckoutRequest;
+import de.haiilo.supermarket.dto.CheckoutResponse;
+import de.haiilo.supermarket.dto.CompactCheckoutRequest;
 import de.haiilo.supermarket.dto.ItemDto;
 import de.haiilo.supermarket.dto.OfferDto;
+import de.haiilo.supermarket.dto.PriceDto;
 import de.haiilo.supermarket.repository.ItemRepository;
 import de.haiilo.supermarket.repository.OfferRepository;
 import de.haiilo.supermarket.repository.OrderRepository;
+import de.haiilo.supermarket.service.CatalogService;
+import de.haiilo.supermarket.service.PriceService;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -21,6 +34,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
@@ -41,6 +55,10 @@ class OrderControllerIntegrationTest {
     private ObjectMapper objectMapper;
     @Autowired
     private DataInitializer dataInitializer;
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private PriceService priceService;
 
     private Item apple;
     private Item banana;
@@ -51,6 +69,7 @@ class OrderControllerIntegrationTest {
         itemRepository.deleteAll();
 
         dataInitializer.initData(itemRepository, offerRepository).run();
+        catalogService.refresh();
 
         List<Item> items = itemRepository.findAll();
         apple = items.get(0);  // First item in dataInitialized (Apple)
@@ -101,6 +120,7 @@ class OrderControllerIntegrationTest {
             result
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.total", is(170)))
+                .andExpect(jsonPath("$.orderId").isNumber())
                 .andExpect(jsonPath("$.errorMessage").doesNotExist())
                 .andExpect(jsonPath("$.itemIdWithPriceChange").doesNotExist());
         }
@@ -139,6 +159,66 @@ class OrderControllerIntegrationTest {
                 .andExpect(jsonPath("$.actualPrice", is(30)));
         }
 
+        @Test
+        void priceChanged_whenCatalogVersionIsFromAnotherNode() throws Exception {
+            // Given
+            var request = new CheckoutRequest(
+                List.of(
+                    new CheckoutRequest.CartItem(
+                        ItemDto.builder()
+                            .id(apple.getId())
+                            .name(apple.getName())
+                            .currentPriceValue(20) // Incorrect price (actual is 30)
+                            .build(),
+                        1
+                    )
+                ),
+                null,
+                catalogService.getSnapshot().version() + (1L << 32) // Same counter, another epoch
+            );
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+
+            // Then
+            result
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.itemIdWithPriceChange", is(apple.getId().intValue())))
+                .andExpect(jsonPath("$.actualPrice", is(30)));
+        }
+
+        @Test
+        void staleItemVersion() throws Exception {
+            // Given
+            var request = new CheckoutRequest(
+                List.of(
+                    new CheckoutRequest.CartItem(
+                        ItemDto.builder()
+                            .id(apple.getId())
+                            .name(apple.getName())
+                            .currentPriceValue(apple.getCurrentPrice().getValue())
+                            .version(apple.getVersion() - 1) // Item was changed since
+                            .build(),
+                        1
+                    )
+                ),
+                30
+            );
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+
+            // Then
+            result
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.itemIdWithPriceChange", is(apple.getId().intValue())))
+                .andExpect(jsonPath("$.actualPrice", is(30)));
+        }
+
         @Test
         void totalMismatch() throws Exception {
             // Given
@@ -199,4 +279,343 @@ class OrderControllerIntegrationTest {
                 .andExpect(jsonPath("$.errorMessage", is("An unexpected error occurred")));
         }
     }
+
+    @Nested
+    class checkoutCompact {
+        private final CBORMapper cborMapper = new CBORMapper();
+
+        @Test
+        void success() throws Exception {
+            // Given
+            var request = new CompactCheckoutRequest(
+                List.of(
+                    new CompactCheckoutRequest.Line(apple.getId(), 2, 30),
+                    new CompactCheckoutRequest.Line(banana.getId(), 3, null)
+                ),
+                170
+            );
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(request)));
+
+            // Then
+            byte[] body = result
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+                .andReturn().getResponse().getContentAsByteArray();
+            CheckoutResponse response = cborMapper.readValue(body, CheckoutResponse.class);
+            assertEquals(170, response.total());
+            assertNotNull(response.orderId());
+            assertEquals(1, orderRepository.count());
+        }
+
+        @Test
+        void priceChanged() throws Exception {
+            // Given
+            var request = new CompactCheckoutRequest(
+                List.of(new CompactCheckoutRequest.Line(apple.getId(), 2, 20)),
+                null
+            );
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(request)));
+
+            // Then
+            result
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.itemIdWithPriceChange", is(apple.getId().intValue())))
+                .andExpect(jsonPath("$.actualPrice", is(30)));
+        }
+
+        @Test
+        void badRequest_whenLineIncomplete() throws Exception {
+            // Given
+            var request = new CompactCheckoutRequest(
+                List.of(new CompactCheckoutRequest.Line(apple.getId(), null, 30)),
+                null
+            );
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(request)));
+
+            // Then
+            result
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage", is("Quantity must be positive for item: " + apple.getId())));
+            assertEquals(0, orderRepository.count());
+        }
+
+        @Test
+        void badRequest_whenItemUnknown() throws Exception {
+            // Given
+            var request = new CompactCheckoutRequest(
+                List.of(new CompactCheckoutRequest.Line(999L, 1, 30)),
+                30
+            );
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(request)));
+
+            // Then
+            result
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage", is("Item not found in catalog: 999")));
+            assertEquals(0, orderRepository.count());
+        }
+    }
+
+    @Nested
+    class checkoutBatch {
+        @Test
+        void resultPerCart_withFailedCartsNotOrdered() throws Exception {
+            // Given
+            var request = new BatchCheckoutRequest(List.of(
+                sale(null, List.of(cartItem(apple.getId(), 30, 2), cartItem(banana.getId(), 50, 3)), 170),
+                sale(null, List.of(cartItem(apple.getId(), 20, 1)), 20), // Stale price
+                sale(null, List.of(cartItem(banana.getId(), 50, 1)), 40), // Wrong total
+                sale(null, List.of(cartItem(999L, 10, 1)), 10), // Unknown item
+                sale(null, List.of(cartItem(banana.getId(), null, 1)), null)
+            ));
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+
+            // Then
+            result
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results", hasSize(5)))
+                .andExpect(jsonPath("$.completed", is(2)))
+                .andExpect(jsonPath("$.failed", is(3)))
+                .andExpect(jsonPath("$.catalogVersion").isNumber())
+                .andExpect(jsonPath("$.results[0].total", is(170)))
+                .andExpect(jsonPath("$.results[0].orderId").isNumber())
+                .andExpect(jsonPath("$.results[1].orderId").doesNotExist())
+                .andExpect(jsonPath("$.results[1].itemIdWithPriceChange", is(apple.getId().intValue())))
+                .andExpect(jsonPath("$.results[1].actualPrice", is(30)))
+                .andExpect(jsonPath("$.results[2].errorMessage", is("Total price mismatch. Expected: 40, Actual: 50")))
+                .andExpect(jsonPath("$.results[3].errorMessage", is("Item not found in catalog: 999")))
+                .andExpect(jsonPath("$.results[4].total", is(50)));
+            assertEquals(2, orderRepository.count());
+        }
+
+        @Test
+        void pricedAtSaleTime() throws Exception {
+            // Given
+            LocalDateTime soldAt = LocalDateTime.now();
+            priceService.createPriceAndUpdateItem(PriceDto.builder()
+                .itemId(apple.getId())
+                .value(40)
+                .build());
+            var request = new BatchCheckoutRequest(List.of(
+                sale(soldAt, List.of(cartItem(apple.getId(), 30, 3)), 75),
+                sale(null, List.of(cartItem(apple.getId(), 40, 3)), 100),
+                sale(LocalDateTime.of(2000, 1, 1, 0, 0), List.of(cartItem(apple.getId(), 30, 1)), 30)
+            ));
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+
+            // Then
+            result
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed", is(2)))
+                .andExpect(jsonPath("$.results[0].total", is(75)))
+                .andExpect(jsonPath("$.results[1].total", is(100)))
+                .andExpect(jsonPath("$.results[2].errorMessage", startsWith("No price for item " + apple.getId())));
+        }
+
+        private BatchCheckoutRequest.Sale sale(LocalDateTime soldAt, List<CheckoutRequest.CartItem> items, Integer total) {
+            return new BatchCheckoutRequest.Sale(soldAt, items, total);
+        }
+
+        private CheckoutRequest.CartItem cartItem(Long itemId, Integer price, int quantity) {
+            return new CheckoutRequest.CartItem(ItemDto.builder().id(itemId).currentPriceValue(price).build(), quantity);
+        }
+    }
+
+    @Nested
+    class checkoutStream {
+        @Test
+        void success_withDuplicateLinesSummedUp() throws Exception {
+            // Given
+            String body = """
+                {"items": [
+                  {"item": {"id": %d, "name": "Apple", "currentPriceValue": 30, "currentOffer": {"quantity": 2}}, "quantity": 1},
+                  {"quantity": 3, "item": {"id": %d, "currentPriceValue": 50}},
+                  {"item": {"id": %d}, "quantity": 1}
+                ], "total": 170}
+                """.formatted(apple.getId(), banana.getId(), apple.getId());
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+
+            // Then
+            result
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(170)))
+                .andExpect(jsonPath("$.orderId").isNumber());
+            assertEquals(1, orderRepository.count());
+        }
+
+        @Test
+        void priceChanged() throws Exception {
+            // Given
+            String body = """
+                {"items": [{"item": {"id": %d, "currentPriceValue": 20}, "quantity": 2}]}
+                """.formatted(apple.getId());
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+
+            // Then
+            result
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.itemIdWithPriceChange", is(apple.getId().intValue())))
+                .andExpect(jsonPath("$.actualPrice", is(30)));
+        }
+
+        @Test
+        void itemQuantityLimitExceeded() throws Exception {
+            // Given
+            String body = """
+                {"items": [
+                  {"item": {"id": %d}, "quantity": 6000},
+                  {"item": {"id": %d}, "quantity": 6000}
+                ]}
+                """.formatted(apple.getId(), apple.getId());
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+
+            // Then
+            result
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.errorMessage", is("Quantity of item " + apple.getId() + " exceeds the limit of 10000")));
+            assertEquals(0, orderRepository.count());
+        }
+
+        @Test
+        void malformedCart() throws Exception {
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"items\": [{\"item\": {\"name\": \"Apple\"}, \"quantity\": 1}]}"));
+
+            // Then
+            result
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage", is("Cart line without item id or quantity")));
+        }
+
+        @Test
+        void badRequest_whenItemUnknown() throws Exception {
+            // Given
+            String body = """
+                {"items": [
+                  {"item": {"id": %d}, "quantity": 1},
+                  {"item": {"id": 999, "currentPriceValue": 30}, "quantity": 1}
+                ]}
+                """.formatted(apple.getId());
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/checkout/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+
+            // Then
+            result
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage", is("Item not found in catalog: 999")));
+            assertEquals(0, orderRepository.count());
+        }
+    }
+
+    @Nested
+    class quote {
+        @Test
+        void success_withoutPersistingOrder() throws Exception {
+            // Given
+            var request = new CheckoutRequest(
+                List.of(
+                    new CheckoutRequest.CartItem(
+                        ItemDto.builder()
+                            .id(apple.getId())
+                            .currentPriceValue(20) // Stale client price doesn't matter for a quote
+                            .build(),
+                        3
+                    ),
+                    new CheckoutRequest.CartItem(
+                        ItemDto.builder()
+                            .id(banana.getId())
+                            .build(),
+                        1
+                    )
+                ),
+                null
+            );
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/quote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+
+            // Then
+            result
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(125)))
+                .andExpect(jsonPath("$.discount", is(0)))
+                .andExpect(jsonPath("$.lines", hasSize(2)))
+                .andExpect(jsonPath("$.lines[0].itemId", is(apple.getId().intValue())))
+                .andExpect(jsonPath("$.lines[0].unitPrice", is(30)))
+                .andExpect(jsonPath("$.lines[0].total", is(75)))
+                .andExpect(jsonPath("$.lines[1].total", is(50)))
+                .andExpect(jsonPath("$.catalogVersion").isNumber());
+            assertEquals(0, orderRepository.count());
+        }
+
+        @Test
+        void badRequest_whenItemUnknown() throws Exception {
+            // Given
+            var request = new CheckoutRequest(
+                List.of(
+                    new CheckoutRequest.CartItem(
+                        ItemDto.builder()
+                            .id(Long.MAX_VALUE)
+                            .build(),
+                        1
+                    )
+                ),
+                null
+            );
+
+            // When
+            ResultActions result = mockMvc.perform(post("/api/orders/quote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+
+            // Then
+            result
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage", is("Item not found in catalog: " + Long.MAX_VALUE)));
+        }
+    }
 }
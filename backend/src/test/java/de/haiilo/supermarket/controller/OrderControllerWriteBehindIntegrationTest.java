@@ -0,0 +1,109 @@
+package de.haiilo.supermarket.controller;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haiilo.supermarket.config.DataInitializer;
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.domain.Order;
+import de.haiilo.supermarket.dto.CheckoutRequest;
+import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.repository.OfferRepository;
+import de.haiilo.supermarket.repository.OrderRepository;
+import de.haiilo.supermarket.service.CatalogService;
+import de.haiilo.supermarket.service.OrderJournalDrainer;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = {
+    "supermarket.checkout.write-behind.enabled=true",
+    "supermarket.checkout.write-behind.journal-dir=${java.io.tmpdir}/order-journal-${random.uuid}",
+    "supermarket.checkout.write-behind.drain-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class OrderControllerWriteBehindIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private OfferRepository offerRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private DataInitializer dataInitializer;
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private OrderJournalDrainer orderJournalDrainer;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Item apple;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        orderJournalDrainer.drain();
+        orderRepository.deleteAll();
+        itemRepository.deleteAll();
+
+        dataInitializer.initData(itemRepository, offerRepository).run();
+        catalogService.refresh();
+
+        apple = itemRepository.findAll().get(0);
+    }
+
+    @Test
+    void checkout_isJournaledAndDrainedIntoOrderTables() throws Exception {
+        // Given
+        var request = new CheckoutRequest(
+            List.of(new CheckoutRequest.CartItem(
+                ItemDto.builder()
+                    .id(apple.getId())
+                    .currentPriceValue(apple.getCurrentPrice().getValue())
+                    .build(),
+                3
+            )),
+            75
+        );
+
+        // When
+        String response = mockMvc.perform(post("/api/orders/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total", is(75)))
+            .andExpect(jsonPath("$.orderId").isNumber())
+            .andReturn().getResponse().getContentAsString();
+        long orderId = objectMapper.readTree(response).get("orderId").asLong();
+
+        // Then
+        assertFalse(orderRepository.existsById(orderId));
+
+        orderJournalDrainer.drain();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Order order = orderRepository.findById(orderId).orElseThrow();
+            assertEquals(75, order.getTotal());
+            assertEquals(1, order.getItems().size());
+            assertEquals(3, order.getItems().iterator().next().getQuantity());
+            assertEquals(2, order.getItems().iterator().next().getOfferSnapshot().getQuantity());
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package de.haiilo.supermarket.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.haiilo.supermarket.exception.PriceChangedException;
+import de.haiilo.supermarket.exception.TotalMismatchException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class SupermarketMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private SupermarketMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new SupermarketMetrics(registry);
+    }
+
+    @Nested
+    class timeCheckout {
+
+        @Test
+        void success() {
+            // When
+            String result = metrics.timeCheckout(3, () -> "done");
+
+            // Then
+            assertEquals("done", result);
+            assertEquals(1, checkoutCount("success", "none"));
+            assertEquals(3, registry.get(SupermarketMetrics.CHECKOUT_CART_LINES).summary().totalAmount());
+        }
+
+        @Test
+        void priceChanged() {
+            // When
+            assertThrows(PriceChangedException.class, () -> metrics.timeCheckout(1, () -> {
+                throw new PriceChangedException(1L, "Apple", 30);
+            }));
+
+            // Then
+            assertEquals(1, checkoutCount("price_changed", "PriceChangedException"));
+        }
+
+        @Test
+        void totalMismatch() {
+            // When
+            assertThrows(TotalMismatchException.class, () -> metrics.timeCheckout(1, () -> {
+                throw new TotalMismatchException(50, 45);
+            }));
+
+            // Then
+            assertEquals(1, checkoutCount("total_mismatch", "TotalMismatchException"));
+        }
+
+        @Test
+        void unexpectedError() {
+            // When
+            assertThrows(IllegalStateException.class, () -> metrics.timeCheckout(1, () -> {
+                throw new IllegalStateException("Item not found in catalog: 999");
+            }));
+
+            // Then
+            assertEquals(1, checkoutCount("error", "IllegalStateException"));
+        }
+    }
+
+    @Nested
+    class catalogRendered {
+
+        @Test
+        void countsHitsAndMisses() {
+            // When
+            metrics.catalogRendered(false);
+            metrics.catalogRendered(true);
+            metrics.catalogRendered(true);
+
+            // Then
+            assertEquals(2, registry.get(SupermarketMetrics.CATALOG_RENDER).tag("result", "hit").counter().count());
+            assertEquals(1, registry.get(SupermarketMetrics.CATALOG_RENDER).tag("result", "miss").counter().count());
+        }
+    }
+
+    @Nested
+    class topPriceChanges {
+
+        @Test
+        void ranksItemsByChanges() {
+            // Given
+            metrics.pricesChanged(List.of(1L, 2L));
+            metrics.pricesChanged(List.of(2L, 3L));
+            metrics.pricesChanged(List.of(2L, 3L));
+
+            // When
+            List<SupermarketMetrics.ItemPriceChanges> top = metrics.topPriceChanges(2);
+
+            // Then
+            assertEquals(List.of(2L, 3L), top.stream().map(SupermarketMetrics.ItemPriceChanges::itemId).toList());
+            assertEquals(List.of(3L, 2L), top.stream().map(SupermarketMetrics.ItemPriceChanges::changes).toList());
+            assertEquals(6, registry.get(SupermarketMetrics.PRICE_CHANGES).counter().count());
+        }
+    }
+
+    private long checkoutCount(String outcome, String exception) {
+        return registry.get(SupermarketMetrics.CHECKOUT)
+            .tag("outcome", outcome)
+            .tag("exception", exception)
+            .timer()
+            .count();
+    }
+}
@@ -0,0 +1,71 @@
+package de.haiilo.supermarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.haiilo.supermarket.dto.CatalogDelta;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class CatalogDeltaLogTest {
+
+    private CatalogDeltaLog deltaLog;
+
+    @BeforeEach
+    void setUp() {
+        deltaLog = new CatalogDeltaLog(3);
+        deltaLog.reset(10);
+    }
+
+    @Nested
+    class since {
+
+        @Test
+        void returnsDeltasAfterVersion() {
+            // Given
+            deltaLog.append(delta(11));
+            deltaLog.append(delta(12));
+            deltaLog.append(delta(13));
+
+            // When / Then
+            assertEquals(List.of(delta(12), delta(13)), deltaLog.since(11).orElseThrow());
+            assertEquals(List.of(delta(11), delta(12), delta(13)), deltaLog.since(10).orElseThrow());
+            assertEquals(List.of(), deltaLog.since(13).orElseThrow());
+        }
+
+        @Test
+        void empty_whenVersionWasEvicted() {
+            // Given
+            deltaLog.append(delta(11));
+            deltaLog.append(delta(12));
+            deltaLog.append(delta(13));
+            deltaLog.append(delta(14));
+
+            // When / Then
+            assertTrue(deltaLog.since(10).isEmpty());
+            assertEquals(List.of(delta(12), delta(13), delta(14)), deltaLog.since(11).orElseThrow());
+        }
+
+        @Test
+        void empty_whenVersionIsBeforeFullReload() {
+            // Given
+            deltaLog.append(delta(11));
+            deltaLog.reset(12);
+
+            // When / Then
+            assertTrue(deltaLog.since(11).isEmpty());
+            assertEquals(List.of(), deltaLog.since(12).orElseThrow());
+        }
+
+        @Test
+        void empty_whenVersionIsUnknown() {
+            assertTrue(deltaLog.since(11).isEmpty());
+        }
+    }
+
+    private static CatalogDelta delta(long version) {
+        return new CatalogDelta(version, List.of());
+    }
+}
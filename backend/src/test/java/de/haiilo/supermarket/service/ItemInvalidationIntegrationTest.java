@@ -0,0 +1,134 @@
+package de.haiilo.supermarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.dto.ItemInvalidationDto;
+import de.haiilo.supermarket.dto.PriceDto;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import de.haiilo.supermarket.repository.ItemRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Own database, so the changes made "by another node" don't leak into other tests
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:item-invalidation")
+class ItemInvalidationIntegrationTest {
+
+    // Stands in for the fanout exchange, the test delivers what was published
+    @TestConfiguration
+    static class InMemoryBusConfig {
+        @Bean
+        RecordingInvalidationBus itemInvalidationBus() {
+            return new RecordingInvalidationBus();
+        }
+    }
+
+    static class RecordingInvalidationBus implements ItemInvalidationBus {
+        private final List<ItemInvalidationDto> published = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void publish(ItemInvalidationDto invalidation) {
+            published.add(invalidation);
+        }
+    }
+
+    @Autowired
+    private RecordingInvalidationBus invalidationBus;
+    @Autowired
+    private ItemInvalidationHandler itemInvalidationHandler;
+    @Autowired
+    private PriceService priceService;
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Item apple;
+
+    @BeforeEach
+    void setUp() {
+        apple = itemRepository.findAll().stream()
+            .filter(item -> item.getName().startsWith("Apple"))
+            .findFirst()
+            .orElseThrow();
+        invalidationBus.published.clear();
+    }
+
+    @Nested
+    class publish {
+
+        @Test
+        void shouldPublishChangedItemWithItsVersionAfterCommit() {
+            // When
+            priceService.createPriceAndUpdateItem(new PriceDto(apple.getId(), 35));
+
+            // Then
+            long version = catalogService.getSnapshot().find(apple.getId()).item().version();
+            assertEquals(apple.getVersion() + 1, version);
+            assertEquals(
+                List.of(new ItemInvalidationDto(List.of(new ItemInvalidationDto.ItemVersion(apple.getId(), version)))),
+                invalidationBus.published);
+        }
+    }
+
+    @Nested
+    class apply {
+
+        @Test
+        void shouldIgnoreOwnInvalidation() {
+            // Given
+            priceService.createPriceAndUpdateItem(new PriceDto(apple.getId(), 36));
+            long catalogVersion = catalogService.getSnapshot().version();
+            double ignored = invalidations("ignored");
+
+            // When
+            itemInvalidationHandler.apply(invalidationBus.published.get(0));
+
+            // Then
+            assertEquals(catalogVersion, catalogService.getSnapshot().version());
+            assertEquals(ignored + 1, invalidations("ignored"));
+        }
+
+        @Test
+        void shouldEvictAndReloadItemChangedByAnotherNode() {
+            // Given - cached on this node, then changed behind its back
+            transactionTemplate.executeWithoutResult(status -> itemRepository.findById(apple.getId()).orElseThrow());
+            long version = catalogService.getSnapshot().find(apple.getId()).item().version();
+            jdbcTemplate.update("update item set name = 'Apple Elstar', version = ? where id = ?",
+                version + 1, apple.getId());
+
+            // When
+            itemInvalidationHandler.apply(new ItemInvalidationDto(
+                List.of(new ItemInvalidationDto.ItemVersion(apple.getId(), version + 1))));
+
+            // Then
+            CatalogEntry entry = catalogService.getSnapshot().find(apple.getId());
+            assertEquals("Apple Elstar", entry.item().name());
+            assertEquals(version + 1, entry.item().version());
+            assertEquals("Apple Elstar", transactionTemplate.execute(status ->
+                itemRepository.findById(apple.getId()).orElseThrow().getName()));
+        }
+    }
+
+    private double invalidations(String outcome) {
+        Counter counter = meterRegistry.find(SupermarketMetrics.ITEM_INVALIDATIONS).tag("outcome", outcome).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
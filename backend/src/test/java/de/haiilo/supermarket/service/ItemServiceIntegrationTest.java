@@ -0,0 +1,136 @@
+package de.haiilo.supermarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.domain.Offer;
+import de.haiilo.supermarket.domain.Price;
+import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.repository.OfferRepository;
+import de.haiilo.supermarket.util.OfferCalculator;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Own database, so the 1,000 items don't leak into other tests
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:item-service-statements",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ItemServiceIntegrationTest {
+    private static final int ITEM_COUNT = 1_000;
+
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private OfferRepository offerRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private long itemCount;
+
+    @BeforeAll
+    void createItems() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ITEM_COUNT; i++) {
+                createItem("Item " + i, 10 + i % 50, i % 2 == 0);
+            }
+        });
+        itemCount = itemRepository.count();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics.clear();
+    }
+
+    @Nested
+    class getCatalogEntries {
+
+        @Test
+        void loadsWholeCatalogInOneStatement() {
+            // When
+            List<CatalogEntry> entries = itemService.getCatalogEntries();
+
+            // Then
+            assertEquals(itemCount, entries.size());
+            assertEquals(1, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+        }
+
+        @Test
+        void loadsChangedItemsInOneStatement() {
+            // Given
+            List<Long> ids = itemRepository.findAll().stream().map(Item::getId).limit(ITEM_COUNT).toList();
+            statistics.clear();
+
+            // When
+            List<CatalogEntry> entries = itemService.getCatalogEntries(ids);
+
+            // Then
+            assertEquals(ITEM_COUNT, entries.size());
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+    }
+
+    @Nested
+    class findAllWithCurrentPriceAndOfferById {
+
+        @Test
+        void loadsItemsWithPriceAndOfferInOneStatement() {
+            // Given
+            List<Long> ids = itemRepository.findAll().stream().map(Item::getId).limit(ITEM_COUNT).toList();
+            statistics.clear();
+
+            // When
+            List<Item> items = transactionTemplate.execute(status -> {
+                List<Item> loaded = itemRepository.findAllWithCurrentPriceAndOfferById(ids);
+                loaded.forEach(item -> OfferCalculator.calculateOfferPrice(item));
+                return loaded;
+            });
+
+            // Then
+            assertEquals(ITEM_COUNT, items.size());
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+    }
+
+    private void createItem(String name, int priceValue, boolean withOffer) {
+        var item = new Item();
+        item.setName(name);
+
+        var price = new Price();
+        price.setValue(priceValue);
+        price.setItem(item);
+        item.setCurrentPrice(price);
+        item.getPrices().add(price);
+        item = itemRepository.save(item);
+
+        if (withOffer) {
+            var offer = new Offer();
+            offer.setQuantity(2);
+            offer.setDiscountPercentage(25);
+            offer.setItem(item);
+            offer = offerRepository.save(offer);
+            item.setCurrentOffer(offer);
+            item.getOffers().add(offer);
+            price.setCalculatedOfferPrice(OfferCalculator.calculateOfferPrice(item));
+        }
+    }
+}
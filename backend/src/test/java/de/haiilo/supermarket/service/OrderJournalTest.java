@@ -0,0 +1,126 @@
+package de.haiilo.supermarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haiilo.supermarket.config.CheckoutProperties;
+import de.haiilo.supermarket.exception.JournalUnavailableException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrderJournalTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private CheckoutProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CheckoutProperties();
+        properties.getWriteBehind().setJournalDir(journalDir.toString());
+    }
+
+    @Test
+    void shouldReadAppendedOrdersInOrder() throws Exception {
+        // Given
+        OrderJournal journal = new OrderJournal(objectMapper, properties);
+
+        // When
+        journal.append(order(1));
+        journal.append(order(2));
+        journal.append(order(3));
+        OrderJournal.Batch batch = journal.read(2);
+
+        // Then
+        assertEquals(List.of(1L, 2L), batch.orders().stream().map(JournaledOrder::orderId).toList());
+        assertEquals(order(1), batch.orders().get(0));
+        journal.close();
+    }
+
+    @Test
+    void shouldReplayUndrainedOrders_afterReopen() throws Exception {
+        // Given
+        OrderJournal journal = new OrderJournal(objectMapper, properties);
+        journal.append(order(1));
+        journal.append(order(2));
+        journal.markDrained(journal.read(1).endOffset());
+        journal.close();
+
+        // When
+        OrderJournal reopened = new OrderJournal(objectMapper, properties);
+        OrderJournal.Batch batch = reopened.read(10);
+
+        // Then
+        assertEquals(List.of(2L), batch.orders().stream().map(JournaledOrder::orderId).toList());
+        reopened.markDrained(batch.endOffset());
+        assertTrue(reopened.read(10).orders().isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    void shouldDropTornLastEntry_afterReopen() throws Exception {
+        // Given
+        OrderJournal journal = new OrderJournal(objectMapper, properties);
+        journal.append(order(1));
+        journal.close();
+        Files.writeString(journalDir.resolve("orders.journal"), "{\"orderId\":2,\"crea",
+            StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        // When
+        OrderJournal reopened = new OrderJournal(objectMapper, properties);
+        reopened.append(order(3));
+        OrderJournal.Batch batch = reopened.read(10);
+
+        // Then
+        assertEquals(List.of(1L, 3L), batch.orders().stream().map(JournaledOrder::orderId).toList());
+        reopened.close();
+    }
+
+    @Test
+    void shouldRejectAppends_afterClose() throws Exception {
+        // Given
+        OrderJournal journal = new OrderJournal(objectMapper, properties);
+        journal.close();
+
+        // When / Then
+        assertThrows(JournalUnavailableException.class, () -> journal.append(order(1)));
+    }
+
+    @Test
+    void shouldGiveUpOnAppend_whenWriterIsStuck() throws Exception {
+        // Given
+        properties.getWriteBehind().setAppendTimeoutMs(200);
+        OrderJournal journal = new OrderJournal(objectMapper, properties);
+
+        // When
+        // Idle, the writer checks for compaction holding the journal's lock, so holding it stops the writer
+        synchronized (journal) {
+            Thread.sleep(300);
+            assertThrows(JournalUnavailableException.class, () -> journal.append(order(1)));
+        }
+        journal.append(order(2));
+
+        // Then
+        // The append that timed out is skipped, not written late
+        assertEquals(List.of(2L), journal.read(10).orders().stream().map(JournaledOrder::orderId).toList());
+        journal.close();
+    }
+
+    private static JournaledOrder order(long orderId) {
+        return new JournaledOrder(orderId, LocalDateTime.of(2024, 1, 1, 12, 0), 75, List.of(
+            new JournaledOrder.Line(1, 3, 30, 7L, 2, 25),
+            new JournaledOrder.Line(3, 1, 60, null, null, null)
+        ));
+    }
+}
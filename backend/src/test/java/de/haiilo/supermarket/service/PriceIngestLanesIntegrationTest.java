@@ -0,0 +1,62 @@
+package de.haiilo.supermarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.dto.PriceDto;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import de.haiilo.supermarket.repository.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Own database, so the price history doesn't leak into other tests
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:price-ingest-lanes",
+    "supermarket.price-ingest.lanes=4"
+})
+class PriceIngestLanesIntegrationTest {
+    private static final int UPDATES_PER_ITEM = 20;
+
+    @Autowired
+    private PriceIngestLanes priceIngestLanes;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Nested
+    class apply {
+
+        @Test
+        void shouldApplyPricesOfEachItemInOrder() {
+            // Given
+            List<Item> items = itemRepository.findAll();
+            List<PriceDto> priceDtos = new ArrayList<>();
+            for (int update = 1; update <= UPDATES_PER_ITEM; update++) {
+                for (Item item : items) {
+                    priceDtos.add(new PriceDto(item.getId(), update * 10));
+                }
+            }
+
+            // When
+            priceIngestLanes.apply(priceDtos);
+
+            // Then
+            assertTrue(priceIngestLanes.isEnabled());
+            transactionTemplate.executeWithoutResult(status -> itemRepository.findAll().forEach(item ->
+                assertEquals(UPDATES_PER_ITEM * 10, item.getCurrentPrice().getValue())));
+            assertEquals(4, meterRegistry.find(SupermarketMetrics.PRICE_INGEST_LANE_DEPTH).gauges().size());
+            meterRegistry.find(SupermarketMetrics.PRICE_INGEST_LANE_DEPTH).gauges()
+                .forEach(depth -> assertEquals(0, depth.value()));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.haiilo.supermarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.domain.RelayLock;
+import de.haiilo.supermarket.dto.PriceChangedDto;
+import de.haiilo.supermarket.dto.PriceDto;
+import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.repository.PriceOutboxRepository;
+import de.haiilo.supermarket.repository.RelayLockRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Own database, so the price changes don't leak into other tests
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:price-outbox",
+    "supermarket.price-outbox.relay-enabled=true",
+    "supermarket.price-outbox.batch-size=2"
+})
+class PriceOutboxRelayIntegrationTest {
+
+    // Stands in for the broker, confirming everything unless told to fail
+    @TestConfiguration
+    static class RecordingPublisherConfig {
+        @Bean
+        RecordingPublisher priceChangePublisher() {
+            return new RecordingPublisher();
+        }
+    }
+
+    static class RecordingPublisher implements PriceChangePublisher {
+        private final List<PriceChangedDto> published = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+
+        @Override
+        public void publish(List<PriceChangedDto> changes) {
+            if (failing) {
+                throw new IllegalStateException("No confirm");
+            }
+            published.addAll(changes);
+        }
+    }
+
+    @Autowired
+    private RecordingPublisher publisher;
+    @Autowired
+    private PriceOutboxRelay relay;
+    @Autowired
+    private PriceService priceService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private PriceOutboxRepository outboxRepository;
+    @Autowired
+    private RelayLockRepository lockRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Map<String, Item> itemsByName;
+
+    @BeforeEach
+    void setUp() {
+        relay.relay();
+        publisher.published.clear();
+        publisher.failing = false;
+        itemsByName = itemRepository.findAll().stream().collect(Collectors.toMap(Item::getName, item -> item));
+    }
+
+    @Nested
+    class relay {
+
+        @Test
+        void shouldPublishEveryChangeOfAnItemInCommitOrder() {
+            // Given
+            Long apple = itemsByName.get("Apple").getId();
+            Long banana = itemsByName.get("Banana").getId();
+            priceService.createPriceAndUpdateItem(new PriceDto(apple, 31));
+            priceService.createPricesAndUpdateItems(List.of(
+                new PriceDto(banana, 51), new PriceDto(apple, 32), new PriceDto(apple, 33)));
+            priceService.createPriceAndUpdateItem(new PriceDto(banana, 52));
+
+            // When
+            relay.relay();
+
+            // Then
+            assertEquals(0, outboxRepository.count());
+            assertEquals(List.of(31, 32, 33), pricesOf(apple));
+            assertEquals(List.of(51, 52), pricesOf(banana));
+            // Both prices of the batch were committed with the same item version
+            long appleVersion = itemsByName.get("Apple").getVersion();
+            assertEquals(List.of(appleVersion + 1, appleVersion + 2, appleVersion + 2), changesOf(apple).stream()
+                .map(PriceChangedDto::itemVersion)
+                .toList());
+            // Apple has an offer, 2 for 25% off
+            PriceChangedDto lastApple = changesOf(apple).get(2);
+            assertEquals(50, lastApple.offerPrice());
+            assertEquals(2, lastApple.offerQuantity());
+        }
+
+        @Test
+        void shouldKeepChangesUntilConfirmed() {
+            // Given
+            Long peach = itemsByName.get("Peach").getId();
+            publisher.failing = true;
+            priceService.createPriceAndUpdateItem(new PriceDto(peach, 61));
+
+            // When
+            relay.relay();
+
+            // Then
+            assertEquals(1, outboxRepository.count());
+            assertTrue(publisher.published.isEmpty());
+
+            // When confirmed
+            publisher.failing = false;
+            relay.relay();
+
+            // Then
+            assertEquals(0, outboxRepository.count());
+            assertEquals(List.of(61), pricesOf(peach));
+        }
+
+        @Test
+        void shouldSkipWhileAnotherNodeHoldsTheLock() throws Exception {
+            // Given
+            Long peach = itemsByName.get("Peach").getId();
+            priceService.createPriceAndUpdateItem(new PriceDto(peach, 62));
+            CountDownLatch locked = new CountDownLatch(1);
+            CountDownLatch released = new CountDownLatch(1);
+            Thread otherNode = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+                lockRepository.tryLock(RelayLock.PRICE_OUTBOX);
+                locked.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            otherNode.start();
+            locked.await();
+
+            // When
+            relay.relay();
+
+            // Then
+            assertEquals(1, outboxRepository.count());
+            assertTrue(publisher.published.isEmpty());
+
+            // When released
+            released.countDown();
+            otherNode.join();
+            relay.relay();
+
+            // Then
+            assertEquals(0, outboxRepository.count());
+            assertEquals(List.of(62), pricesOf(peach));
+        }
+    }
+
+    private List<PriceChangedDto> changesOf(Long itemId) {
+        return publisher.published.stream()
+            .filter(change -> change.itemId().equals(itemId))
+            .toList();
+    }
+
+    private List<Integer> pricesOf(Long itemId) {
+        return changesOf(itemId).stream()
+            .map(PriceChangedDto::price)
+            .toList();
+    }
+}
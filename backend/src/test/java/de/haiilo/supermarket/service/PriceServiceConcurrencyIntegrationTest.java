@@ -0,0 +1,89 @@
+package de.haiilo.supermarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.domain.Price;
+import de.haiilo.supermarket.dto.PriceDto;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
+import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.repository.PriceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Own database, so the price history doesn't leak into other tests
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:price-service-concurrency")
+class PriceServiceConcurrencyIntegrationTest {
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 25;
+
+    @Autowired
+    private PriceService priceService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private PriceRepository priceRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentPriceWritesOfOneItem_areNotLost() throws Exception {
+        // Given
+        Item apple = itemRepository.findAll().get(0);
+        long versionBefore = apple.getVersion();
+        long pricesBefore = priceRepository.count();
+        double priceChangesBefore = priceChanges();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        // When
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int base = thread * 1_000;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int update = 0; update < UPDATES_PER_THREAD; update++) {
+                    priceService.createPriceAndUpdateItem(PriceDto.builder()
+                        .itemId(apple.getId())
+                        .value(base + update)
+                        .build());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+
+        // Then
+        int writes = THREADS * UPDATES_PER_THREAD;
+        assertEquals(pricesBefore + writes, priceRepository.count());
+        // Counted once committed, retries after a conflict don't count again
+        assertEquals(priceChangesBefore + writes, priceChanges());
+        transactionTemplate.executeWithoutResult(status -> {
+            Item item = itemRepository.findById(apple.getId()).orElseThrow();
+            // Every write moved the item one version further, none overwrote another
+            assertEquals(versionBefore + writes, item.getVersion());
+            Price latest = item.getPrices().stream().max(Comparator.comparing(Price::getCreatedAt)).orElseThrow();
+            assertEquals(latest, item.getCurrentPrice());
+        });
+    }
+
+    private double priceChanges() {
+        return meterRegistry.get(SupermarketMetrics.PRICE_CHANGES).counter().count();
+    }
+}
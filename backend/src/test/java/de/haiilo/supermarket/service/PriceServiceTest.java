@@ -3,16 +3,27 @@ package de.haiilo.supermarket.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import de.haiilo.supermarket.domain.Item;
 import de.haiilo.supermarket.domain.Offer;
 import de.haiilo.supermarket.domain.Price;
+import de.haiilo.supermarket.domain.PriceOutboxEntry;
 import de.haiilo.supermarket.dto.PriceDto;
+import de.haiilo.supermarket.event.CatalogChangedEvent;
+import de.haiilo.supermarket.metrics.SupermarketMetrics;
 import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.repository.PriceOutboxRepository;
 import de.haiilo.supermarket.repository.PriceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import javax.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -21,6 +32,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class PriceServiceTest {
@@ -31,11 +46,21 @@ class PriceServiceTest {
     @Mock
     private PriceRepository priceRepository;
 
+    @Mock
+    private PriceOutboxRepository priceOutboxRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private PriceService priceService;
 
     @BeforeEach
     void setUp() {
-        priceService = new PriceService(itemRepository, priceRepository);
+        priceService = new PriceService(itemRepository, priceRepository, priceOutboxRepository, eventPublisher,
+            new SupermarketMetrics(new SimpleMeterRegistry()), new TransactionTemplate(transactionManager));
     }
 
     @Nested
@@ -93,6 +118,41 @@ class PriceServiceTest {
             
             Item savedItem = itemCaptor.getValue();
             assertEquals(savedPrice, savedItem.getCurrentPrice());
+
+            verify(eventPublisher).publishEvent(new CatalogChangedEvent(Set.of(itemId)));
+        }
+
+        @Test
+        void shouldRetryOnStaleItem_andGiveUpAfterMaxAttempts() {
+            // Given
+            Long itemId = 1L;
+            Item item = new Item();
+            item.setId(itemId);
+
+            PriceDto priceDto = PriceDto.builder()
+                .itemId(itemId)
+                .value(100)
+                .build();
+
+            when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+            when(itemRepository.save(item))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Item.class, itemId))
+                .thenReturn(item);
+
+            // When
+            priceService.createPriceAndUpdateItem(priceDto);
+
+            // Then
+            verify(itemRepository, times(2)).save(item);
+            verify(transactionManager, times(1)).rollback(any());
+            verify(eventPublisher, times(1)).publishEvent(new CatalogChangedEvent(Set.of(itemId)));
+
+            // When always stale
+            when(itemRepository.save(item)).thenThrow(new ObjectOptimisticLockingFailureException(Item.class, itemId));
+
+            // Then
+            assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> priceService.createPriceAndUpdateItem(priceDto));
         }
 
         @Test
@@ -104,6 +164,7 @@ class PriceServiceTest {
             Item item = new Item();
             item.setId(itemId);
             item.setName("Test Item");
+            item.setVersion(7L);
             
             Offer offer = new Offer();
             offer.setQuantity(3);
@@ -134,6 +195,103 @@ class PriceServiceTest {
             
             Item savedItem = itemCaptor.getValue();
             assertEquals(savedPrice, savedItem.getCurrentPrice());
+
+            // Written in the same transaction, with the version the item gets on commit
+            ArgumentCaptor<PriceOutboxEntry> outboxCaptor = ArgumentCaptor.forClass(PriceOutboxEntry.class);
+            verify(priceOutboxRepository).save(outboxCaptor.capture());
+
+            PriceOutboxEntry outboxEntry = outboxCaptor.getValue();
+            assertEquals(itemId, outboxEntry.getItemId());
+            assertEquals(8L, outboxEntry.getItemVersion());
+            assertEquals(priceValue, outboxEntry.getValue());
+            assertEquals(240, outboxEntry.getCalculatedOfferPrice());
+            assertEquals(3, outboxEntry.getOfferQuantity());
+        }
+    }
+
+    @Nested
+    class createPricesAndUpdateItems {
+
+        @Test
+        void shouldApplyPricesInOrder_andPublishOneEvent() {
+            // Given
+            Item apple = new Item();
+            apple.setId(1L);
+            Offer offer = new Offer();
+            offer.setQuantity(2);
+            offer.setDiscountPercentage(25);
+            apple.setCurrentOffer(offer);
+
+            Item banana = new Item();
+            banana.setId(2L);
+
+            when(itemRepository.findAllWithCurrentPriceAndOfferById(Set.of(1L, 2L))).thenReturn(List.of(apple, banana));
+
+            // When
+            priceService.createPricesAndUpdateItems(List.of(
+                PriceDto.builder().itemId(1L).value(30).build(),
+                PriceDto.builder().itemId(2L).value(50).build(),
+                PriceDto.builder().itemId(1L).value(40).build()
+            ));
+
+            // Then
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Price>> pricesCaptor = ArgumentCaptor.forClass(List.class);
+            verify(priceRepository).saveAll(pricesCaptor.capture());
+
+            List<Price> savedPrices = pricesCaptor.getValue();
+            assertEquals(3, savedPrices.size());
+            assertEquals(savedPrices.get(2), apple.getCurrentPrice());
+            assertEquals(40, apple.getCurrentPrice().getValue());
+            assertEquals(60, apple.getCurrentPrice().getCalculatedOfferPrice());
+            assertEquals(savedPrices.get(1), banana.getCurrentPrice());
+            assertTrue(savedPrices.get(2).getCreatedAt().isAfter(savedPrices.get(0).getCreatedAt()));
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<PriceOutboxEntry>> outboxCaptor = ArgumentCaptor.forClass(List.class);
+            verify(priceOutboxRepository).saveAll(outboxCaptor.capture());
+            assertEquals(List.of(30, 50, 40), outboxCaptor.getValue().stream().map(PriceOutboxEntry::getValue).toList());
+
+            verify(eventPublisher).publishEvent(new CatalogChangedEvent(Set.of(1L, 2L)));
+        }
+
+        @Test
+        void shouldSkipUnknownItems() {
+            // Given
+            Item apple = new Item();
+            apple.setId(1L);
+
+            when(itemRepository.findAllWithCurrentPriceAndOfferById(Set.of(1L, 999L))).thenReturn(List.of(apple));
+
+            // When
+            priceService.createPricesAndUpdateItems(List.of(
+                PriceDto.builder().itemId(999L).value(10).build(),
+                PriceDto.builder().itemId(1L).value(30).build()
+            ));
+
+            // Then
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Price>> pricesCaptor = ArgumentCaptor.forClass(List.class);
+            verify(priceRepository).saveAll(pricesCaptor.capture());
+
+            assertEquals(1, pricesCaptor.getValue().size());
+            assertEquals(30, apple.getCurrentPrice().getValue());
+            verify(eventPublisher).publishEvent(new CatalogChangedEvent(Set.of(1L)));
+        }
+
+        @Test
+        void shouldDoNothing_whenAllItemsUnknown() {
+            // Given
+            when(itemRepository.findAllWithCurrentPriceAndOfferById(Set.of(999L))).thenReturn(List.of());
+
+            // When
+            priceService.createPricesAndUpdateItems(List.of(
+                PriceDto.builder().itemId(999L).value(10).build()
+            ));
+
+            // Then
+            verify(priceRepository, never()).saveAll(any());
+            verify(eventPublisher, never()).publishEvent(any());
         }
     }
 }
@@ -0,0 +1,143 @@
+package de.haiilo.supermarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.haiilo.supermarket.config.PromotionProperties;
+import de.haiilo.supermarket.util.CompiledPrice;
+import de.haiilo.supermarket.util.ItemQuantityMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PricingRulesTest {
+    private static final long APPLE = 1;
+    private static final long BANANA = 2;
+    private static final long PEACH = 3;
+
+    // Apple 30 with 2 for 45, Banana 50 with 3 for 125, Peach 60
+    private final ItemPrices prices = itemId -> switch ((int) itemId) {
+        case 1 -> new CompiledPrice(30, 2, 45, 1, 25);
+        case 2 -> new CompiledPrice(50, 3, 125, 2, 15);
+        default -> new CompiledPrice(60, 0, 0, 0, 0);
+    };
+
+    @Mock
+    private CatalogService catalogService;
+
+    private PromotionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PromotionProperties();
+    }
+
+    @Nested
+    class price {
+
+        @Test
+        void shouldPriceLikeOfferCalculator_withoutPromotions() {
+            // Given
+            PricingRules rules = new PricingRules(properties, catalogService);
+
+            // When
+            PricingRules.Pricing pricing = rules.price(cart(APPLE, 5, BANANA, 3), prices);
+
+            // Then
+            assertArrayEquals(new int[] {120, 125}, pricing.lineTotals());
+            assertEquals(0, pricing.discount());
+            assertEquals(245, pricing.total());
+        }
+
+        @Test
+        void shouldApplyFurtherTiers() {
+            // Given: Apple also 5 for 30% off (105)
+            properties.setTiers(Map.of(APPLE, List.of(tier(5, 30))));
+            PricingRules rules = new PricingRules(properties, catalogService);
+
+            // When
+            PricingRules.Pricing pricing = rules.price(cart(APPLE, 7, PEACH, 1), prices);
+
+            // Then: 5 for 105 + 2 for 45
+            assertArrayEquals(new int[] {150, 60}, pricing.lineTotals());
+            assertEquals(210, pricing.total());
+        }
+
+        @Test
+        void shouldBundleMostExpensiveUnbundledUnits_forMixAndMatch() {
+            // Given: any 3 of apple, banana and peach for 10% off
+            properties.setMixAndMatch(List.of(mixAndMatch(Set.of(APPLE, BANANA, PEACH), 3, 10)));
+            PricingRules rules = new PricingRules(properties, catalogService);
+
+            // When: 1 apple and 2 bananas left after their offers, 2 peaches
+            PricingRules.Pricing pricing = rules.price(cart(APPLE, 3, BANANA, 5, PEACH, 2), prices);
+
+            // Then: 60 + 60 + 50 bundled, the remaining 50 and 30 aren't a full bundle
+            assertEquals(75 + 225 + 120, pricing.lineTotals()[0] + pricing.lineTotals()[1] + pricing.lineTotals()[2]);
+            assertEquals(17, pricing.discount());
+            assertEquals(420 - 17, pricing.total());
+        }
+
+        @Test
+        void shouldApplyHighestReachedBasketThreshold() {
+            // Given
+            properties.setBasketThresholds(List.of(threshold(100, 5), threshold(200, 10)));
+            PricingRules rules = new PricingRules(properties, catalogService);
+
+            // Then
+            assertEquals(90, rules.total(cart(PEACH, 1, APPLE, 1), prices));
+            assertEquals(114, rules.total(cart(PEACH, 2), prices));
+            assertEquals(216, rules.total(cart(PEACH, 4), prices));
+        }
+    }
+
+    @Test
+    void shouldRejectItemInSeveralMixAndMatchGroups() {
+        // Given
+        properties.setMixAndMatch(List.of(
+            mixAndMatch(Set.of(APPLE, BANANA), 2, 10),
+            mixAndMatch(Set.of(BANANA, PEACH), 2, 10)
+        ));
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> new PricingRules(properties, catalogService));
+    }
+
+    private static ItemQuantityMap cart(long... itemIdsAndQuantities) {
+        ItemQuantityMap lines = new ItemQuantityMap();
+        for (int i = 0; i < itemIdsAndQuantities.length; i += 2) {
+            lines.add(itemIdsAndQuantities[i], (int) itemIdsAndQuantities[i + 1]);
+        }
+        return lines;
+    }
+
+    private static PromotionProperties.Tier tier(int quantity, int discountPercentage) {
+        var tier = new PromotionProperties.Tier();
+        tier.setQuantity(quantity);
+        tier.setDiscountPercentage(discountPercentage);
+        return tier;
+    }
+
+    private static PromotionProperties.MixAndMatch mixAndMatch(Set<Long> itemIds, int quantity, int discountPercentage) {
+        var mixAndMatch = new PromotionProperties.MixAndMatch();
+        mixAndMatch.setItemIds(itemIds);
+        mixAndMatch.setQuantity(quantity);
+        mixAndMatch.setDiscountPercentage(discountPercentage);
+        return mixAndMatch;
+    }
+
+    private static PromotionProperties.BasketThreshold threshold(int minTotal, int discountPercentage) {
+        var threshold = new PromotionProperties.BasketThreshold();
+        threshold.setMinTotal(minTotal);
+        threshold.setDiscountPercentage(discountPercentage);
+        return threshold;
+    }
+}
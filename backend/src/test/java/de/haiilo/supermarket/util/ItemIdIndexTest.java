@@ -0,0 +1,42 @@
+package de.haiilo.supermarket.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class ItemIdIndexTest {
+
+    @Test
+    void shouldFindPositionOfEveryItem() {
+        // Given
+        long[] itemIds = LongStream.rangeClosed(1, 1000).map(id -> id * 7).toArray();
+
+        // When
+        ItemIdIndex index = new ItemIdIndex(itemIds);
+
+        // Then
+        for (int position = 0; position < itemIds.length; position++) {
+            assertEquals(position, index.positionOf(itemIds[position]));
+        }
+    }
+
+    @Test
+    void shouldReturnMinusOne_whenItemUnknown() {
+        // Given
+        ItemIdIndex index = new ItemIdIndex(new long[] {1, 2, 3});
+
+        // Then
+        assertEquals(-1, index.positionOf(4));
+        assertEquals(-1, index.positionOf(0));
+    }
+
+    @Test
+    void shouldHandleEmptyIndex() {
+        // Given
+        ItemIdIndex index = new ItemIdIndex(new long[0]);
+
+        // Then
+        assertEquals(-1, index.positionOf(1));
+    }
+}
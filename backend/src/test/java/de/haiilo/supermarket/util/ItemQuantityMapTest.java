@@ -0,0 +1,59 @@
+package de.haiilo.supermarket.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class ItemQuantityMapTest {
+
+    @Test
+    void shouldSumQuantitiesPerItem_inFirstSeenOrder() {
+        // Given
+        ItemQuantityMap map = new ItemQuantityMap();
+
+        // When
+        map.add(7, 2);
+        map.add(3, 1);
+        int summed = map.add(7, 5);
+
+        // Then
+        assertEquals(7, summed);
+        assertEquals(2, map.size());
+        assertEquals(7, map.itemIdAt(0));
+        assertEquals(7, map.quantityAt(0));
+        assertEquals(3, map.itemIdAt(1));
+        assertEquals(1, map.quantityAt(1));
+    }
+
+    @Test
+    void shouldKeepAllItems_whenGrowing() {
+        // Given
+        ItemQuantityMap map = new ItemQuantityMap();
+
+        // When
+        for (long itemId = 1; itemId <= 10_000; itemId++) {
+            map.add(itemId * 31, 1);
+        }
+        for (long itemId = 1; itemId <= 10_000; itemId++) {
+            map.add(itemId * 31, (int) itemId);
+        }
+
+        // Then
+        assertEquals(10_000, map.size());
+        for (int line = 0; line < map.size(); line++) {
+            assertEquals((line + 1) * 31L, map.itemIdAt(line));
+            assertEquals(line + 2, map.quantityAt(line));
+        }
+    }
+
+    @Test
+    void shouldThrow_whenQuantityOverflows() {
+        // Given
+        ItemQuantityMap map = new ItemQuantityMap();
+        map.add(1, Integer.MAX_VALUE);
+
+        // Then
+        assertThrows(ArithmeticException.class, () -> map.add(1, 1));
+    }
+}
@@ -211,4 +211,48 @@ class OfferCalculatorTest {
             assertEquals(290, result); // 2 offer sets (240) + 1 regular item (50) = 290
         }
     }
+
+    @Nested
+    class calculateLineTotal {
+
+        @Test
+        void shouldCalculateRegularPrice_whenNoOffer() {
+            // Given
+            CompiledPrice price = new CompiledPrice(50, 0, 0, 0, 0);
+
+            // When
+            int result = OfferCalculator.calculateLineTotal(price, 3);
+
+            // Then
+            assertEquals(150, result);
+        }
+
+        @ParameterizedTest
+        @MethodSource
+        void shouldMatchEntityBasedCalculation(int quantity) {
+            // Given
+            Item item = new Item();
+            Price price = new Price();
+            price.setValue(50);
+            price.setCalculatedOfferPrice(120);
+            item.setCurrentPrice(price);
+
+            Offer offer = new Offer();
+            offer.setQuantity(3);
+            offer.setDiscountPercentage(20);
+            item.setCurrentOffer(offer);
+
+            CompiledPrice compiledPrice = new CompiledPrice(50, 3, 120, 1, 20);
+
+            // When
+            int result = OfferCalculator.calculateLineTotal(compiledPrice, quantity);
+
+            // Then
+            assertEquals(OfferCalculator.calculateTotalPrice(item, quantity), result);
+        }
+
+        static Stream<Integer> shouldMatchEntityBasedCalculation() {
+            return Stream.of(0, 1, 2, 3, 5, 7, 100);
+        }
+    }
 }
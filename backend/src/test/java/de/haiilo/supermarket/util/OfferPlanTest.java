@@ -0,0 +1,92 @@
+package de.haiilo.supermarket.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class OfferPlanTest {
+
+    @Nested
+    class totalFor {
+
+        @Test
+        void shouldMatchOfferCalculator_whenOnlyTheCurrentOfferIsCompiled() {
+            // Given
+            CompiledPrice price = new CompiledPrice(50, 3, 120, 1, 20);
+
+            // When
+            OfferPlan plan = OfferPlan.compile(price, new int[0], new int[0], 20);
+
+            // Then
+            for (int quantity = 0; quantity <= 100; quantity++) {
+                assertEquals(OfferCalculator.calculateLineTotal(price, quantity), plan.totalFor(quantity));
+            }
+        }
+
+        @Test
+        void shouldMatchOfferCalculator_whenTheCurrentOfferRoundsAboveTheRegularPrice() {
+            // Given: 2 each, 2 for 5 after rounding 10% off to the nearest 5
+            CompiledPrice price = new CompiledPrice(2, 2, OfferCalculator.calculateOfferPrice(2, 2, 10), 1, 10);
+
+            // When
+            OfferPlan plan = OfferPlan.compile(price, new int[0], new int[0], 10);
+
+            // Then
+            assertEquals(5, plan.totalFor(2));
+            for (int quantity = 0; quantity <= 100; quantity++) {
+                assertEquals(OfferCalculator.calculateLineTotal(price, quantity), plan.totalFor(quantity));
+                assertEquals(quantity % 2, plan.unbundledFor(quantity));
+            }
+        }
+
+        @Test
+        void shouldCombineTiersToTheCheapestTotal() {
+            // Given: 30 each, 2 for 45, 5 for 100
+            CompiledPrice price = new CompiledPrice(30, 2, 45, 1, 25);
+
+            // When
+            OfferPlan plan = OfferPlan.compile(price, new int[] {5}, new int[] {100}, 20);
+
+            // Then
+            assertEquals(30, plan.totalFor(1));
+            assertEquals(45, plan.totalFor(2));
+            assertEquals(90, plan.totalFor(4));
+            assertEquals(100, plan.totalFor(5));
+            assertEquals(130, plan.totalFor(6));
+            // 5 + 2 beats 2 + 2 + 2 + 1
+            assertEquals(145, plan.totalFor(7));
+            assertEquals(1, plan.unbundledFor(6));
+            assertEquals(0, plan.unbundledFor(7));
+        }
+
+        @Test
+        void shouldRepeatTheCheapestTier_aboveTheTable() {
+            // Given
+            CompiledPrice price = new CompiledPrice(30, 2, 45, 1, 25);
+            OfferPlan small = OfferPlan.compile(price, new int[] {5}, new int[] {100}, 10);
+            OfferPlan large = OfferPlan.compile(price, new int[] {5}, new int[] {100}, 1_000);
+
+            // Then
+            for (int quantity = 0; quantity <= 1_000; quantity++) {
+                assertEquals(large.totalFor(quantity), small.totalFor(quantity));
+                assertEquals(large.unbundledFor(quantity), small.unbundledFor(quantity));
+            }
+        }
+
+        @Test
+        void shouldNeverChargeMoreThanTheRegularPrice() {
+            // Given: a tier priced above its regular price
+            CompiledPrice price = new CompiledPrice(2, 0, 0, 0, 0);
+
+            // When
+            OfferPlan plan = OfferPlan.compile(price, new int[] {2}, new int[] {5}, 10);
+
+            // Then
+            for (int quantity = 0; quantity <= 20; quantity++) {
+                assertTrue(plan.totalFor(quantity) <= quantity * 2);
+            }
+        }
+    }
+}
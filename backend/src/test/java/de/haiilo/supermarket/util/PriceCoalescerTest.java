@@ -0,0 +1,53 @@
+package de.haiilo.supermarket.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import de.haiilo.supermarket.dto.PriceDto;
+import java.util.List;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class PriceCoalescerTest {
+
+    @Nested
+    class latestPerItem {
+
+        @Test
+        void shouldKeepOnlyLatestPricePerItem() {
+            // Given
+            List<PriceDto> priceDtos = List.of(
+                new PriceDto(1L, 44),
+                new PriceDto(2L, 50),
+                new PriceDto(1L, 53),
+                new PriceDto(3L, 60),
+                new PriceDto(1L, 66)
+            );
+
+            // When
+            List<PriceDto> result = PriceCoalescer.latestPerItem(priceDtos);
+
+            // Then
+            assertEquals(List.of(
+                new PriceDto(2L, 50),
+                new PriceDto(3L, 60),
+                new PriceDto(1L, 66)
+            ), result);
+        }
+
+        @Test
+        void shouldReturnSameList_whenNothingSuperseded() {
+            // Given
+            List<PriceDto> priceDtos = List.of(
+                new PriceDto(1L, 44),
+                new PriceDto(2L, 50)
+            );
+
+            // When
+            List<PriceDto> result = PriceCoalescer.latestPerItem(priceDtos);
+
+            // Then
+            assertSame(priceDtos, result);
+        }
+    }
+}
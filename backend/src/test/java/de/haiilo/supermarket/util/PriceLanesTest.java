@@ -0,0 +1,54 @@
+package de.haiilo.supermarket.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.haiilo.supermarket.dto.PriceDto;
+import java.util.List;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class PriceLanesTest {
+
+    @Nested
+    class partition {
+
+        @Test
+        void shouldKeepPricesOfAnItemInOrderOnOneLane() {
+            // Given
+            List<PriceDto> priceDtos = List.of(
+                new PriceDto(1L, 44),
+                new PriceDto(2L, 50),
+                new PriceDto(1L, 53),
+                new PriceDto(4L, 60),
+                new PriceDto(1L, 66)
+            );
+
+            // When
+            List<List<PriceDto>> result = PriceLanes.partition(priceDtos, 3);
+
+            // Then
+            assertEquals(List.of(
+                List.of(),
+                List.of(new PriceDto(1L, 44), new PriceDto(1L, 53), new PriceDto(4L, 60), new PriceDto(1L, 66)),
+                List.of(new PriceDto(2L, 50))
+            ), result);
+        }
+
+        @Test
+        void shouldSpreadSequentialItemsEvenly() {
+            // Given
+            List<PriceDto> priceDtos = List.of(
+                new PriceDto(1L, 10),
+                new PriceDto(2L, 20),
+                new PriceDto(3L, 30),
+                new PriceDto(4L, 40)
+            );
+
+            // When
+            List<List<PriceDto>> result = PriceLanes.partition(priceDtos, 4);
+
+            // Then
+            result.forEach(lane -> assertEquals(1, lane.size()));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package de.haiilo.supermarket.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class PriceTimelineTest {
+
+    @Test
+    void shouldReturnPriceInEffectAtTime() {
+        // Given
+        PriceTimeline timeline = new PriceTimeline.Builder()
+            .addPrice(100, 30, null)
+            .addPrice(200, 40, null)
+            .addPrice(300, 50, null)
+            .build();
+
+        // Then
+        assertNull(timeline.priceAt(99));
+        assertEquals(30, timeline.priceAt(100).price());
+        assertEquals(30, timeline.priceAt(199).price());
+        assertEquals(40, timeline.priceAt(200).price());
+        assertEquals(50, timeline.priceAt(Long.MAX_VALUE).price());
+        assertEquals(200, timeline.priceValidFrom(250));
+    }
+
+    @Test
+    void shouldApplyOfferFromItsCreation() {
+        // Given
+        PriceTimeline timeline = new PriceTimeline.Builder()
+            .addPrice(100, 30, 45)
+            .addPrice(300, 40, null)
+            .addOffer(150, 7, 2, 25)
+            .build();
+
+        // Then
+        assertEquals(new CompiledPrice(30, 0, 0, 0, 0), timeline.priceAt(120));
+        assertEquals(new CompiledPrice(30, 2, 45, 7, 25), timeline.priceAt(150));
+        // Offer price calculated from the discount when the price row has none
+        assertEquals(new CompiledPrice(40, 2, 60, 7, 25), timeline.priceAt(300));
+    }
+
+    @Test
+    void shouldDropOfferAtItsEnd_withoutFallingBackToEarlierOne() {
+        // Given
+        PriceTimeline timeline = new PriceTimeline.Builder()
+            .addPrice(100, 30, 45)
+            .addOffer(50, 7, 2, 25)
+            .addOffer(200, 300, 8, 3, 10)
+            .build();
+
+        // Then
+        assertEquals(new CompiledPrice(30, 2, 45, 7, 25), timeline.priceAt(150));
+        // Stored offer price belongs to offer 7, the one of offer 8 is calculated
+        assertEquals(new CompiledPrice(30, 3, 80, 8, 10), timeline.priceAt(200));
+        assertEquals(new CompiledPrice(30, 0, 0, 0, 0), timeline.priceAt(300));
+    }
+
+    @Test
+    void shouldIgnoreRowsNotAfterTheLastOne_whenAppending() {
+        // Given
+        PriceTimeline timeline = new PriceTimeline.Builder()
+            .addPrice(100, 30, null)
+            .build();
+
+        // When
+        PriceTimeline appended = timeline.toBuilder()
+            .addPrice(100, 99, null)
+            .addPrice(200, 40, null)
+            .build();
+
+        // Then
+        assertEquals(30, appended.priceAt(150).price());
+        assertEquals(40, appended.priceAt(200).price());
+        assertEquals(200, appended.lastPriceTime());
+    }
+}
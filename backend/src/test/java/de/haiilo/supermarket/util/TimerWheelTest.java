@@ -0,0 +1,69 @@
+package de.haiilo.supermarket.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+
+    @Nested
+    class advance {
+
+        @Test
+        void shouldFireTasksNotBeforeTheirDeadline_inDeadlineOrder() {
+            // Given
+            TimerWheel<String> wheel = new TimerWheel<>(10, 8, 0);
+            wheel.schedule(35, "b");
+            wheel.schedule(21, "a");
+            wheel.schedule(40, "c");
+
+            // Then
+            assertEquals(List.of(), wheel.advance(29));
+            assertEquals(List.of("a"), wheel.advance(30));
+            assertEquals(List.of("b", "c"), wheel.advance(45));
+            assertEquals(0, wheel.size());
+        }
+
+        @Test
+        void shouldKeepTasksBeyondOneRevolution_untilDue() {
+            // Given
+            TimerWheel<String> wheel = new TimerWheel<>(10, 8, 0);
+            wheel.schedule(15, "near");
+            // Lands in the same bucket as "near", one revolution later
+            wheel.schedule(95, "far");
+
+            // Then
+            assertEquals(List.of("near"), wheel.advance(20));
+            assertEquals(List.of(), wheel.advance(90));
+            assertEquals(List.of("far"), wheel.advance(100));
+        }
+
+        @Test
+        void shouldFirePassedDeadlinesWithNextTick() {
+            // Given
+            TimerWheel<String> wheel = new TimerWheel<>(10, 8, 0);
+            wheel.advance(50);
+
+            // When
+            wheel.schedule(20, "late");
+
+            // Then
+            assertEquals(List.of("late"), wheel.advance(60));
+        }
+
+        @Test
+        void shouldFireEverythingDue_whenFallingBehindMoreThanOneRevolution() {
+            // Given
+            TimerWheel<String> wheel = new TimerWheel<>(10, 4, 0);
+            wheel.schedule(10, "a");
+            wheel.schedule(70, "b");
+            wheel.schedule(500, "c");
+
+            // Then
+            assertEquals(List.of("a", "b"), wheel.advance(200));
+            assertEquals(List.of("c"), wheel.advance(500));
+        }
+    }
+}
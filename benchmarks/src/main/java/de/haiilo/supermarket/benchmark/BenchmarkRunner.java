@@ -0,0 +1,21 @@
+package de.haiilo.supermarket.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.Main;
+
+// Same command line as JMH, but results are written as JSON (jmh-result.json) unless another -rf is given,
+// so runs of different releases can be compared
+public final class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        if (!arguments.contains("-rf")) {
+            arguments.addAll(List.of("-rf", "json"));
+        }
+        Main.main(arguments.toArray(String[]::new));
+    }
+
+    private BenchmarkRunner() {
+    }
+}
@@ -0,0 +1,46 @@
+package de.haiilo.supermarket.benchmark;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.domain.Offer;
+import de.haiilo.supermarket.domain.Price;
+import de.haiilo.supermarket.util.OfferCalculator;
+import java.util.ArrayList;
+import java.util.List;
+
+// Detached items shaped like the ones DataInitializer creates, every other item has an offer
+final class CatalogFixtures {
+
+    static List<Item> items(int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            items.add(item(i, 10 + i % 90, i % 2 == 0 ? 2 + i % 3 : 0, 25));
+        }
+        return items;
+    }
+
+    static Item item(long id, int price, int offerQuantity, int discountPercentage) {
+        var item = new Item();
+        item.setId(id);
+        item.setName("Item " + id);
+
+        var currentPrice = new Price();
+        currentPrice.setId(id);
+        currentPrice.setValue(price);
+        currentPrice.setItem(item);
+        item.setCurrentPrice(currentPrice);
+
+        if (offerQuantity > 0) {
+            var offer = new Offer();
+            offer.setId(id);
+            offer.setQuantity(offerQuantity);
+            offer.setDiscountPercentage(discountPercentage);
+            offer.setItem(item);
+            item.setCurrentOffer(offer);
+            currentPrice.setCalculatedOfferPrice(OfferCalculator.calculateOfferPrice(item));
+        }
+        return item;
+    }
+
+    private CatalogFixtures() {
+    }
+}
@@ -0,0 +1,119 @@
+package de.haiilo.supermarket.benchmark;
+
+import de.haiilo.supermarket.SupermarketApplication;
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.domain.Offer;
+import de.haiilo.supermarket.domain.Price;
+import de.haiilo.supermarket.dto.CheckoutRequest;
+import de.haiilo.supermarket.dto.CheckoutResponse;
+import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.repository.ItemRepository;
+import de.haiilo.supermarket.repository.OfferRepository;
+import de.haiilo.supermarket.service.CatalogService;
+import de.haiilo.supermarket.service.OrderService;
+import de.haiilo.supermarket.util.OfferCalculator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Full checkout against the in-memory H2 database of a started application
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+    private static final int QUANTITY = 3;
+
+    @Param({"1", "10", "100", "500"})
+    private int cartLines;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private JdbcTemplate jdbcTemplate;
+    private CheckoutRequest request;
+
+    @Setup
+    public void setUp() {
+        // The test profile keeps the RabbitMQ listeners out of the context
+        context = new SpringApplicationBuilder(SupermarketApplication.class)
+            .profiles("test")
+            .run("--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.de.haiilo.supermarket=WARN");
+        orderService = context.getBean(OrderService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> createItems(
+            context.getBean(ItemRepository.class), context.getBean(OfferRepository.class)));
+        CatalogService catalogService = context.getBean(CatalogService.class);
+        catalogService.refresh();
+
+        List<CheckoutRequest.CartItem> cart = catalogService.getSnapshot().items().stream()
+            .limit(cartLines)
+            .map(item -> new CheckoutRequest.CartItem(
+                ItemDto.builder().id(item.id()).currentPriceValue(item.currentPriceValue()).build(), QUANTITY))
+            .toList();
+        int total = orderService.quote(new CheckoutRequest(cart, null)).total();
+        request = new CheckoutRequest(cart, total);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteOrders() {
+        jdbcTemplate.update("delete from order_item");
+        jdbcTemplate.update("delete from kata_order");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CheckoutResponse processCheckout() {
+        return orderService.processCheckout(request);
+    }
+
+    private void createItems(ItemRepository itemRepository, OfferRepository offerRepository) {
+        for (Item detached : CatalogFixtures.items(cartLines)) {
+            var item = new Item();
+            item.setName(detached.getName());
+
+            var price = new Price();
+            price.setValue(detached.getCurrentPrice().getValue());
+            price.setItem(item);
+            item.setCurrentPrice(price);
+            item.getPrices().add(price);
+            item = itemRepository.save(item);
+
+            if (detached.getCurrentOffer() != null) {
+                var offer = new Offer();
+                offer.setQuantity(detached.getCurrentOffer().getQuantity());
+                offer.setDiscountPercentage(detached.getCurrentOffer().getDiscountPercentage());
+                offer.setItem(item);
+                offer = offerRepository.save(offer);
+                item.setCurrentOffer(offer);
+                item.getOffers().add(offer);
+                price.setCalculatedOfferPrice(OfferCalculator.calculateOfferPrice(item));
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package de.haiilo.supermarket.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haiilo.supermarket.dto.CheckoutRequest;
+import de.haiilo.supermarket.dto.CompactCheckoutRequest;
+import de.haiilo.supermarket.mapper.CompactMapper;
+import de.haiilo.supermarket.mapper.ItemMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+// The JSON checkout request against its compact CBOR counterpart, payload sizes are reported as the bytes counter
+public class CheckoutRequestCodecBenchmark {
+
+    @Param({"1", "10", "100", "500"})
+    private int cartLines;
+
+    // Configured like the ObjectMapper Spring Boot builds for the controllers
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper cborMapper = new CompactMapper(Jackson2ObjectMapperBuilder.json()).getCborMapper();
+    private CheckoutRequest request;
+    private CompactCheckoutRequest compactRequest;
+    private byte[] json;
+    private byte[] cbor;
+
+    @Setup
+    public void setUp() throws IOException {
+        ItemMapper itemMapper = new ItemMapper();
+        List<CheckoutRequest.CartItem> items = CatalogFixtures.items(cartLines).stream()
+            .map(item -> new CheckoutRequest.CartItem(itemMapper.toDto(item), 3))
+            .toList();
+        request = new CheckoutRequest(items, 0);
+        json = objectMapper.writeValueAsBytes(request);
+
+        compactRequest = new CompactCheckoutRequest(items.stream()
+            .map(cartItem -> new CompactCheckoutRequest.Line(
+                cartItem.item().id(), cartItem.quantity(), cartItem.item().currentPriceValue()))
+            .toList(), 0);
+        cbor = cborMapper.writeValueAsBytes(compactRequest);
+    }
+
+    @Benchmark
+    public byte[] serialize(PayloadSize size) throws IOException {
+        size.bytes = json.length;
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public CheckoutRequest deserialize(PayloadSize size) throws IOException {
+        size.bytes = json.length;
+        return objectMapper.readValue(json, CheckoutRequest.class);
+    }
+
+    @Benchmark
+    public byte[] serializeCbor(PayloadSize size) throws IOException {
+        size.bytes = cbor.length;
+        return cborMapper.writeValueAsBytes(compactRequest);
+    }
+
+    @Benchmark
+    public CompactCheckoutRequest deserializeCbor(PayloadSize size) throws IOException {
+        size.bytes = cbor.length;
+        return cborMapper.readValue(cbor, CompactCheckoutRequest.class);
+    }
+
+    // Shown next to each result as the secondary "bytes" result, the size of the payload it wrote or read
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long bytes;
+    }
+}
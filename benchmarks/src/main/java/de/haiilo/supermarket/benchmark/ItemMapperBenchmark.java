@@ -0,0 +1,59 @@
+package de.haiilo.supermarket.benchmark;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.dto.ItemDto;
+import de.haiilo.supermarket.mapper.ItemMapper;
+import de.haiilo.supermarket.util.CompiledPrice;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Mapping the whole catalog, as done when the catalog snapshot is rebuilt
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemMapperBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    private final ItemMapper itemMapper = new ItemMapper();
+    private List<Item> items;
+
+    @Setup
+    public void setUp() {
+        items = CatalogFixtures.items(catalogSize);
+    }
+
+    @Benchmark
+    public List<ItemDto> toDto() {
+        List<ItemDto> dtos = new ArrayList<>(items.size());
+        for (Item item : items) {
+            dtos.add(itemMapper.toDto(item));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<CompiledPrice> toCompiledPrice() {
+        List<CompiledPrice> prices = new ArrayList<>(items.size());
+        for (Item item : items) {
+            prices.add(itemMapper.toCompiledPrice(item));
+        }
+        return prices;
+    }
+}
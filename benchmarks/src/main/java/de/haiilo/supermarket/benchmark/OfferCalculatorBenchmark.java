@@ -0,0 +1,72 @@
+package de.haiilo.supermarket.benchmark;
+
+import de.haiilo.supermarket.domain.Item;
+import de.haiilo.supermarket.mapper.ItemMapper;
+import de.haiilo.supermarket.util.CompiledPrice;
+import de.haiilo.supermarket.util.OfferCalculator;
+import de.haiilo.supermarket.util.OfferPlan;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OfferCalculatorBenchmark {
+
+    @Param({"1", "2", "7", "100"})
+    private int quantity;
+
+    private Item item;
+    private CompiledPrice compiledPrice;
+    // 2 for 45 plus 5 for 105 and 10 for 195
+    private int[] tierQuantities = {5, 10};
+    private int[] tierPrices = {105, 195};
+    private OfferPlan offerPlan;
+
+    @Setup
+    public void setUp() {
+        item = CatalogFixtures.item(1, 30, 2, 25);
+        compiledPrice = new ItemMapper().toCompiledPrice(item);
+        offerPlan = OfferPlan.compile(compiledPrice, tierQuantities, tierPrices, 100);
+    }
+
+    @Benchmark
+    public Integer calculateOfferPrice() {
+        return OfferCalculator.calculateOfferPrice(item);
+    }
+
+    @Benchmark
+    public int calculateTotalPrice() {
+        return OfferCalculator.calculateTotalPrice(item, quantity);
+    }
+
+    @Benchmark
+    public int calculateLineTotal() {
+        return OfferCalculator.calculateLineTotal(compiledPrice, quantity);
+    }
+
+    // Tiered line total, a table lookup whatever the number of tiers
+    @Benchmark
+    public int offerPlanTotalFor() {
+        return offerPlan.totalFor(quantity);
+    }
+
+    // Paid once per price change of a tiered item
+    @Benchmark
+    public OfferPlan compileOfferPlan() {
+        return OfferPlan.compile(compiledPrice, tierQuantities, tierPrices, 100);
+    }
+}
@@ -0,0 +1,50 @@
+package de.haiilo.supermarket.benchmark;
+
+import de.haiilo.supermarket.util.CompiledPrice;
+import de.haiilo.supermarket.util.PriceTimeline;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceTimelineBenchmark {
+    private static final long PRICE_INTERVAL = 60_000_000L;
+
+    // Price changes of one item, one per minute
+    @Param({"10", "1000", "100000"})
+    private int prices;
+
+    private PriceTimeline timeline;
+
+    @Setup
+    public void setUp() {
+        PriceTimeline.Builder builder = new PriceTimeline.Builder();
+        for (int i = 0; i < prices; i++) {
+            builder.addPrice(i * PRICE_INTERVAL, 30 + i % 20, null);
+            if (i % 100 == 0) {
+                builder.addOffer(i * PRICE_INTERVAL + 1, i, 2, 25);
+            }
+        }
+        timeline = builder.build();
+    }
+
+    @Benchmark
+    public CompiledPrice priceAt() {
+        return timeline.priceAt(ThreadLocalRandom.current().nextLong(prices * PRICE_INTERVAL));
+    }
+}
@@ -15,6 +15,7 @@ export interface CheckoutResponse {
   errorMessage?: string;
   itemIdWithPriceChange?: number;
   actualPrice?: number;
+  orderId?: number;
   total?: number;
 }
 
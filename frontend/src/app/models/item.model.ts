@@ -8,4 +8,5 @@ export interface Item {
   name: string;
   currentPriceValue: number;
   currentOffer: Offer;
+  version?: number;
 }